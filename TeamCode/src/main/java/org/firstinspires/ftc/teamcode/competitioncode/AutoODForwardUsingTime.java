@@ -2,11 +2,16 @@ package org.firstinspires.ftc.teamcode.competitioncode;
 
 import com.qualcomm.robotcore.eventloop.opmode.Autonomous;
 import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
+import com.qualcomm.robotcore.util.RobotLog;
+
+import java.io.IOException;
 
 /**
  * Test autonomous mode, last resort.
  * Unless a miracle happens, we will use this code. Assuming this OP Mode works.
  * Those who fail to learn from history are doomed to repeat it...
+ * Still on the clock, not the encoders, but the move ramps up and down along a motion profile
+ * (see ProcedureExecutor) and covers what timeToMove at full speed would, then stops.
  */
 
 @Autonomous(name = "AutoOD forward using TIME", group = "OD")
@@ -15,6 +20,9 @@ public class AutoODForwardUsingTime extends LinearOpMode {
 
     Hardware_OD_OmniDirection r = new Hardware_OD_OmniDirection(); //Use the shared hardware and function code.
     General12772 g = new General12772(); //Use the shared general robot code.
+    LoopScheduler loop = new LoopScheduler(50);
+    FlightRecorder flight = new FlightRecorder(getClass().getSimpleName(), r.state.driveEncoders.length, 4096);
+    ProcedureExecutor executor = new ProcedureExecutor(r, flight, loop);
 
     //Distance Variables
     private int timeToMove = 1300; //Given in milliseconds. Change this to change distance robot moves.
@@ -23,13 +31,22 @@ public class AutoODForwardUsingTime extends LinearOpMode {
     public void runOpMode() {
         r.init(hardwareMap, false);  //should have named 'isAuto' better, this needs to be false for this OP mode.
         r.mainArmPower = 0;
+        executor.useEncoders = false; //last resort, so don't count on them
+        //All four wheels at -speed, like setDriveSpeed(-r.driveSpeedMed) was. FIXME: For some reason, this is reversed. IDK why.
+        ProcedureTable forward = new ProcedureTable(new double[][]{{-1, 1, 0, r.driveSpeedMed, timeToMove, 1}});
 
         // Wait for the game to start (driver presses PLAY)
         waitForStart();
         r.runtime.reset();
-        r.setDriveSpeed(-r.driveSpeedMed); //FIXME: For some reason, this is reversed. IDK why.
-        r.update();
-        sleep(timeToMove);
-        r.setDriveSpeed(0.0);
+        try {
+            flight.startOnRobot();
+        } catch (IOException e) {
+            RobotLog.ee("AutoODForwardUsingTime", e, "Could not start the flight recorder, running without it");
+        }
+        try {
+            executor.drive(forward, 0);
+        } finally {
+            flight.stop();
+        }
     }
 }
\ No newline at end of file
@@ -17,6 +17,7 @@ public class AutoODTestEachMotor extends LinearOpMode {
 
     //Distance Variables
     private int timeToMove = 200; //Milliseconds in each direction.
+    RobotClock clock = RealClock.INSTANCE; //What runRoutine() sleeps on. See useClock().
 
     @Override
     public void runOpMode() {
@@ -26,34 +27,45 @@ public class AutoODTestEachMotor extends LinearOpMode {
         // Wait for the game to start (driver presses PLAY)
         waitForStart();
         r.runtime.reset();
+        runRoutine();
+    }
+
+    /**Everything after Start. Sleeps on clock, so simulation can run it with a virtual clock.*/
+    void runRoutine() {
         /* I am SO sorry for this code, please never do what I am about to do...*/
         /** LF, RF, RR, LR, MA*/
         r.setDriveSpeed(0.0);
-        r.leftFrontDrivePower = r.driveSpeedMed;
+        r.drivePowers[Hardware_OD_OmniDirection.LEFT_FRONT] = r.driveSpeedMed;
         r.update();
-        sleep(timeToMove);
+        clock.sleep(timeToMove);
 
         r.setDriveSpeed(0.0);
-        r.rightFrontDrivePower = r.driveSpeedMed;
+        r.drivePowers[Hardware_OD_OmniDirection.RIGHT_FRONT] = r.driveSpeedMed;
         r.update();
-        sleep(timeToMove);
+        clock.sleep(timeToMove);
 
         r.setDriveSpeed(0.0);
-        r.rightRearDrivePower = r.driveSpeedMed;
+        r.drivePowers[Hardware_OD_OmniDirection.RIGHT_REAR] = r.driveSpeedMed;
         r.update();
-        sleep(timeToMove);
+        clock.sleep(timeToMove);
 
         r.setDriveSpeed(0.0);
-        r.leftRearDrivePower = r.driveSpeedMed;
+        r.drivePowers[Hardware_OD_OmniDirection.LEFT_REAR] = r.driveSpeedMed;
         r.update();
-        sleep(timeToMove);
+        clock.sleep(timeToMove);
 
         r.setDriveSpeed(0.0);
         r.mainArmPower = r.driveSpeedMed;
         r.update();
-        sleep(timeToMove);
+        clock.sleep(timeToMove);
 
         r.setDriveSpeed(0.0);
         r.update();
     }
+
+    /**Run on another time source, e.g. a virtual clock in simulation. Call before runRoutine().*/
+    void useClock(RobotClock clock) {
+        this.clock = clock;
+        r.setClock(clock);
+    }
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package org.firstinspires.ftc.teamcode.competitioncode;
 import com.qualcomm.robotcore.eventloop.opmode.Autonomous;
 import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
 import com.qualcomm.robotcore.eventloop.opmode.Disabled; // Leave this line here even when not used, please
+import com.qualcomm.robotcore.util.RobotLog;
 
 import org.firstinspires.ftc.robotcore.external.ClassFactory;
 import org.firstinspires.ftc.robotcore.external.navigation.RelicRecoveryVuMark;
@@ -11,7 +12,7 @@ import org.firstinspires.ftc.robotcore.external.navigation.VuforiaLocalizer;
 import org.firstinspires.ftc.robotcore.external.navigation.VuforiaTrackable;
 import org.firstinspires.ftc.robotcore.external.navigation.VuforiaTrackables;
 
-import java.util.Arrays;
+import java.io.IOException;
 
 
 /**
@@ -30,16 +31,41 @@ public abstract class AutoODVuforia extends LinearOpMode {
     General12772 g = new General12772(); //Use the shared general robot code.
 
     VuforiaLocalizer vuforia;   //Variable is a reference to the instance of the Vuforia localization/tracking engine
+    LoopScheduler loop = new LoopScheduler(50); //Paces loops that poll, so they don't flood the hub and telemetry.
+    RobotClock clock = RealClock.INSTANCE; //What runRoutine() sleeps on. See useClock().
+    long firstMotionNanos;
+    double routineMs; //First motion to the end of runRoutine()
+    //Logs r.state every cycle of runRoutine(), tagged with the step it is on. See ProcedureExecutor.
+    FlightRecorder flight = new FlightRecorder(getClass().getSimpleName(), r.state.driveEncoders.length, 4096);
+    //Drives fieldMotions on the encoders, and holds. See ProcedureExecutor.
+    ProcedureExecutor executor = new ProcedureExecutor(r, flight, loop);
+    //Every column's procedures, built during init by compileProcedures(). Branches:
+    static final int LEFT = 0, CENTER = 1, RIGHT = 2;
+    ProcedureTable columnProcedures;
+    ProcedureTable ramTable; //ramProcedures
+
+    //VuMark detection runs during init. These hold what it has found so far.
+    int confidentCount = 3; //Same mark this many polls in a row before we trust it.
+    double lateSearchSeconds = 2; //Only used if nothing was found during init.
+    RelicRecoveryVuMark lastSeenVuMark = RelicRecoveryVuMark.UNKNOWN;
+    int sameVuMarkCount = 0;
+    RelicRecoveryVuMark confidentVuMark = RelicRecoveryVuMark.UNKNOWN;
+    long initNanos;
+    double initToDetectionMs = Double.NaN; //Stays NaN if no mark was ever found.
 
     @Override
     public void runOpMode() {
+        initNanos = System.nanoTime();
         r.mainArmPower = 0;
         r.init(hardwareMap, false);  //Initialization with safe space for snowflake-shakes.
+        compileProcedures();
+        r.initTimes.mark("procedure tables");
+        r.initTimes.log("AutoODVuforia");
         r.isAutoWorkAround = true;
         r.clawsPOS = 0.1;  //Claws are set to a closed position
 //        r.initClawServosPOS(r.clawsPOS); //"When you try your best but you don't succeed..."
-        r.leftBottomClawOffset = 0.1;
-        r.rightBottomClawOffset = 1.0;
+        r.claw.leftBottomOffset = 0.1;
+        r.claw.rightBottomOffset = 1.0;
 
         //Use these two lines of code below for displaying camera, OR use parameterless line below that for non-displayed camera.
         int cameraMonitorViewId = hardwareMap.appContext.getResources().getIdentifier("cameraMonitorViewId", "id", hardwareMap.appContext.getPackageName());
@@ -64,100 +90,161 @@ public abstract class AutoODVuforia extends LinearOpMode {
         VuforiaTrackable relicTemplate = relicTrackables.get(0);
         relicTemplate.setName("relicVuMarkTemplate"); // can help in debugging; otherwise not necessary
 
-        telemetry.update();
-        //Wait for the game to start (driver presses PLAY)
-        waitForStart();
-        r.runtime.reset();
-        r.update();
-
-        relicTrackables.activate();   //Begin looking for and identifying set of VuMarks
-
+        relicTrackables.activate();   //Begin looking for and identifying set of VuMarks while we wait for Start
 
         /**
          * See if any of the instances of {@link relicTemplate} are currently visible.
          * {@link RelicRecoveryVuMark} is an enum which can have the following values:
          * UNKNOWN, LEFT, CENTER, and RIGHT. When a VuMark is visible, something other than
          * UNKNOWN will be returned by {@link RelicRecoveryVuMark#from(VuforiaTrackable)}.
+         * The robot sits still during init, so whatever we last saw confidently is still right at Start.
          */
-        RelicRecoveryVuMark vuMark;
-        do {
-            vuMark = RelicRecoveryVuMark.from(relicTemplate);
-            telemetry.addData("VuMark:", vuMark);
+        loop.start();
+        while (!isStarted() && !isStopRequested()) {
+            loop.waitForNextCycle();
+            pollVuMark(relicTemplate);
+            telemetry.addData("VuMark:", "%s (seen %d times in a row)", lastSeenVuMark, sameVuMarkCount);
+            telemetry.addData("Init to detection", "%.0f ms", initToDetectionMs);
+            r.initTimes.addTelemetry(telemetry);
             telemetry.update();
-        } while (vuMark == RelicRecoveryVuMark.UNKNOWN && r.runtime.seconds() <= 5); //Wait until mark is found or time is running out
+        }
 
-        double[][] fieldMotions = new double[12][5];
-        for (int i = fieldMotions.length - 1; i >= 0; i--) //initializes empty procedure list.
-            Arrays.fill(fieldMotions[i], 0.0);
+        //Wait for the game to start (driver presses PLAY)
+        waitForStart();
+        long startNanos = clock.nanoTime();
+        r.runtime.reset();
+        r.update();
+
+        RelicRecoveryVuMark vuMark = confidentVuMark; //Latest confident result, ready the instant Start is pressed
+        if (vuMark == RelicRecoveryVuMark.UNKNOWN) {
+            //Nothing seen during init, so the camera probably can't see it now either. Only look briefly.
+            do {
+                loop.waitForNextCycle();
+                pollVuMark(relicTemplate);
+                vuMark = confidentVuMark;
+            } while (vuMark == RelicRecoveryVuMark.UNKNOWN && r.runtime.seconds() <= lateSearchSeconds && opModeIsActive());
+        }
+        relicTrackables.deactivate(); //Done with the camera, give the CPU back to the drive code.
+
+        try {
+            flight.startOnRobot();
+        } catch (IOException e) {
+            RobotLog.ee("AutoODVuforia", e, "Could not start the flight recorder, running without it");
+        }
+        try {
+            runRoutine(vuMark);
+        } finally {
+            flight.stop(); //never leave the flusher thread running
+        }
+        double startToMotionMs = (firstMotionNanos - startNanos) / 1e6;
+        RobotLog.ii("AutoODVuforia", "VuMark %s, init to detection %.0f ms, start to first motion %.1f ms, routine %.0f ms",
+                vuMark, initToDetectionMs, startToMotionMs, routineMs);
+        telemetry.addData("VuMark:", vuMark);
+        telemetry.addData("Init to detection", "%.0f ms", initToDetectionMs);
+        telemetry.addData("Start to first motion", "%.1f ms", startToMotionMs);
+        telemetry.addData("Routine", "%.0f ms", routineMs);
+        telemetry.update();
+    }
+
+    /**Everything after Start once the VuMark is known. Only talks to r and clock, no Vuforia and no
+     * LinearOpMode calls, so simulation can run it with a virtual clock. Returns early, with the
+     * wheels stopped, once the OP mode is stopping.*/
+    void runRoutine(RelicRecoveryVuMark vuMark) {
+        r.state.procedureStep = -1;
 
         r.raiseArmSlightly(true);
         r.isAutoWorkAround = false;
         r.update();
-        sleep(200);
+        firstMotionNanos = clock.nanoTime();
+        executor.hold(200);
         r.raiseArmSlightly(false);
         r.update();
+        if (executor.stopRequested())
+            return;
 
-        if (vuMark == RelicRecoveryVuMark.LEFT) {
-            fieldMotions = getLeftSideProcedures();
-
-        } else if (vuMark == RelicRecoveryVuMark.CENTER) {
-            fieldMotions = getCenterSideProcedures();
-
-        } else if (vuMark == RelicRecoveryVuMark.RIGHT) {
-            fieldMotions = getRightSideProcedures();
-
-        } else { //If it cannot determine the mark, guess the middle one.
-            fieldMotions = getCenterSideProcedures();
-        }
-        /**fieldMotions should contain [i, j, cw, speed, time]*/
-        for (double[] motion : fieldMotions) {
-            //i,j,acw(0),cw,speed; time
-            r.povDrive(motion[0], motion[1], 0, motion[2], motion[3]);
-            r.update();
-            sleep((long) motion[4]);
-        }
+        /**Rows are [i, j, cw, speed, time, stop]. Time is how far, see ProcedureExecutor.*/
+        executor.drive(columnProcedures, columnBranch(vuMark)); //Stops after the last row, so the cube drops at rest
+        if (executor.stopRequested())
+            return;
         r.lowerArmSlightly(true);
         r.update();
-        sleep(300);
+        executor.hold(300);
         r.lowerArmSlightly(false);
         r.update();
-        sleep(300);
-        //FIXME: Sorry about this...
-        //TODO: Concat fieldMotions to the following procedures before execution.
-        //Move backwards after cube dropped
-        double[] lastCoords = g.rotateCoords(0, -1);
-        r.povDrive(lastCoords[0],lastCoords[1],0,0, r.driveSpeedMin);
-        r.update();
-        sleep(300);
-        //Hold up, while arm does the opposite.
-        r.povDrive(0,0,0,0,0);
-        r.update();
-        sleep(1000);
-        //Ram cube into slot!!
-        lastCoords = g.rotateCoords(0, 1);
-        r.povDrive(lastCoords[0],lastCoords[1],0,0, r.driveSpeedMed);
-        r.update();
-        sleep(200);
-        //Move backwards after cube is rammed
-        lastCoords = g.rotateCoords(0, -1);
-        r.povDrive(lastCoords[0],lastCoords[1],0,0, r.driveSpeedMin);
-        r.update();
-        sleep(300);
-        //It's time to STOP.
-        r.povDrive(0,0,0,0,0);
-        r.update();
+        executor.hold(300);
+        if (executor.stopRequested())
+            return;
+        executor.drive(ramTable, 0); //It's time to STOP afterwards, drive() does that.
+        routineMs = (clock.nanoTime() - firstMotionNanos) / 1e6;
+    }
 
+    /**Builds, mirrors and checks every column's procedures, and the ram after them, while we wait for
+     * Start, so runRoutine() only has to pick one. A bad row throws here, during init, rather than
+     * halfway through autonomous. Call before runRoutine().*/
+    void compileProcedures() {
+        columnProcedures = new ProcedureTable(getLeftSideProcedures(), getCenterSideProcedures(), getRightSideProcedures());
+        ramTable = new ProcedureTable(ramProcedures);
+    }
+
+    /**Branch of columnProcedures for vuMark. An if chain rather than a switch: a switch on an enum
+     * sets up a lookup array the first time it runs, which would be right after Start.*/
+    static int columnBranch(RelicRecoveryVuMark vuMark) {
+        if (vuMark == RelicRecoveryVuMark.LEFT)
+            return LEFT;
+        if (vuMark == RelicRecoveryVuMark.RIGHT)
+            return RIGHT;
+        return CENTER; //If it cannot determine the mark, guess the middle one.
+    }
+
+    /**Run on another time source, e.g. a virtual clock in simulation. Call before runRoutine().*/
+    void useClock(RobotClock clock) {
+        this.clock = clock;
+        r.setClock(clock);
+        loop.clock = clock;
+        executor.clock = clock;
+    }
+
+    /**Reads the current VuMark once. A mark only becomes confidentVuMark after being seen
+     * confidentCount polls in a row, so a single misread frame can't pick the wrong column.*/
+    void pollVuMark(VuforiaTrackable relicTemplate) {
+        RelicRecoveryVuMark seen = RelicRecoveryVuMark.from(relicTemplate);
+        if (seen == RelicRecoveryVuMark.UNKNOWN) {
+            //A poll without it breaks the streak. Losing sight of it doesn't mean it changed though,
+            //so the last confident one stays.
+            lastSeenVuMark = RelicRecoveryVuMark.UNKNOWN;
+            sameVuMarkCount = 0;
+            return;
+        }
+        if (seen == lastSeenVuMark) {
+            sameVuMarkCount++;
+        } else {
+            lastSeenVuMark = seen;
+            sameVuMarkCount = 1;
+        }
+        if (sameVuMarkCount >= confidentCount && confidentVuMark != seen) {
+            if (confidentVuMark == RelicRecoveryVuMark.UNKNOWN)
+                initToDetectionMs = (System.nanoTime() - initNanos) / 1e6;
+            confidentVuMark = seen;
+        }
     }
     /**Rotate and prepare inputs to be used by POV drive method for translating*/
     double[] fieldTranslate(double x, double y, double speed, long time){
         //+y is forward, +x is right.
         //coordinates returned are rotated to i-j axes. See povDrive method in hardware class for details.
-        return g.concat(g.rotateCoords(x, y), new double[]{0, speed, time});
+        double[] motion = new double[]{0, 0, 0, speed, time, 0};
+        g.rotateCoords(x, y, motion); //fills motion[0] and motion[1]
+        return motion;
     }
     /**Prepare inputs to be used by POV drive method for translating, easier for user.*/
     double[] fieldRotate(boolean clockwise, double speed, long time){
         if (clockwise) speed *= -1;
-        return new double[]{0, 0, 1, speed, time};
+        return new double[]{0, 0, 1, speed, time, 0};
+    }
+    /**Marks motion as one the robot has to stop at the end of, instead of blending into the next.
+     * See ProcedureExecutor.*/
+    static double[] stopAfter(double[] motion){
+        motion[ProcedureExecutor.STOP] = 1;
+        return motion;
     }
     abstract double[][] getLeftSideProcedures();
     abstract double[][] getCenterSideProcedures();
@@ -172,6 +259,12 @@ public abstract class AutoODVuforia extends LinearOpMode {
             fieldRotate(true,0.5 * r.driveSpeedMin, 2000),
             fieldRotate(false,0.5 * r.driveSpeedMin, 2000),
     };
+    /**After the cube is dropped. The 1000 ms "Hold up" pause this used to have is now just a stop.*/
+    final double[][] ramProcedures = new double[][]{
+            stopAfter(fieldTranslate(0,-1, r.driveSpeedMin,300)), //Move backwards after cube dropped
+            fieldTranslate(0,1, r.driveSpeedMed,200), //Ram cube into slot!!
+            fieldTranslate(0,-1, r.driveSpeedMin,300), //Move backwards after cube is rammed
+    };
     double[][] proceduresForLongSide(boolean isRed, int posDist) {
         /**Procedures for red side.*/
         /**posDist determines farness of column.*/
@@ -238,8 +331,8 @@ public abstract class AutoODVuforia extends LinearOpMode {
         return procedures;
     }
     /**Method that takes procedures list and parallel list of which motions need to be reversed,
-     * and returns mirrored procedures.*/
-    double[][] mirrorProcedures(double[][] procedures, boolean[] mirrorThese){
+     * and returns mirrored procedures. Static since it needs no OP mode, which lets benchmarks call it.*/
+    static double[][] mirrorProcedures(double[][] procedures, boolean[] mirrorThese){
         for (int i = 0; i < procedures.length; i++) {
             if (mirrorThese[i]) {
                 /**note that negating both i and j will produce anti-parallel motion.*/
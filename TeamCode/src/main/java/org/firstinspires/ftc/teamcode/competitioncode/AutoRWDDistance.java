@@ -2,19 +2,24 @@ package org.firstinspires.ftc.teamcode.competitioncode;
 
 import com.qualcomm.robotcore.eventloop.opmode.Autonomous;
 import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
-import com.qualcomm.robotcore.hardware.DcMotor;
 import com.qualcomm.robotcore.eventloop.opmode.Disabled; // Leave this line here even when not used, please
+import com.qualcomm.robotcore.util.RobotLog;
 
 /**
  * Test autonomous mode, probably will be scrapped soon.
+ * Drives both wheels numberOfFeet forward with PositionMove, then shows how far past the target
+ * they went and how long they took to stop.
  */
 
 @Autonomous(name = "AutoRWD Move (experimental)", group = "OD")
 @Disabled                            //Enables or disables such OpMode (hide or show on Driver Station OpMode List)
 public class AutoRWDDistance extends LinearOpMode {
 
+    static final int LEFT = Hardware_RWD_RearWheelDrive.LEFT, RIGHT = Hardware_RWD_RearWheelDrive.RIGHT;
     Hardware_RWD_RearWheelDrive r = new Hardware_RWD_RearWheelDrive(); //Use the shared hardware and function code.
     General12772 g = new General12772(); //Use the shared general robot code.
+    LoopScheduler loop = new LoopScheduler(50);
+    PositionMove move = new PositionMove(r, loop);
 
     //Distance Variables
     private double numberOfFeet = 4.0;          //Distance desired to travel
@@ -29,18 +34,19 @@ public class AutoRWDDistance extends LinearOpMode {
         // Wait for the game to start (driver presses PLAY)
         waitForStart();
         r.runtime.reset();
-        r.leftDrive.setMode(DcMotor.RunMode.RUN_TO_POSITION);
-        r.rightDrive.setMode(DcMotor.RunMode.RUN_TO_POSITION);
         targetPosition = (int)( (numberOfFeet*incrementsPerRevolution)*(12.0) / (driveWheelDiameter*Math.PI) );
-        r.setDriveSpeed(r.driveSpeedMin);
-        r.leftDrive.setTargetPosition(targetPosition);
-        r.rightDrive.setTargetPosition(targetPosition);
-
-        r.update();
-        //To prevent major seizure near target destination, this code cuts off the motors once it is close enough
-        while (Math.abs(r.leftDrive.getCurrentPosition()-r.leftDrive.getTargetPosition())>50){ //checks if close enough
-            sleep(200);     // time interval between checking if close enough
-        }
-        r.setDriveSpeed(0.0);
+        //Both wheels every cycle, slowing down near the target, so no more seizures there either.
+        move.moveTo(targetPosition, r.driveSpeedMin);
+
+        RobotLog.ii("AutoRWDDistance", "Target %d ticks, overshoot left %d right %d, stop latency left %.0f right %.0f ms, %.0f ms, %d cycles%s",
+                targetPosition, move.overshootTicks[LEFT], move.overshootTicks[RIGHT],
+                move.stopLatencyMs[LEFT], move.stopLatencyMs[RIGHT], move.durationMs, move.cycles,
+                move.timedOut ? ", timed out" : move.stopped ? ", stopped" : "");
+        telemetry.addData("Overshoot", "left %d, right %d ticks", move.overshootTicks[LEFT], move.overshootTicks[RIGHT]);
+        telemetry.addData("Stop latency", "left %.0f, right %.0f ms", move.stopLatencyMs[LEFT], move.stopLatencyMs[RIGHT]);
+        telemetry.addData("Move", "%.0f ms%s", move.durationMs, move.timedOut ? ", timed out" : "");
+        telemetry.update();
+        while (opModeIsActive())
+            idle(); //Keep the numbers on the Driver Station until Stop
     }
 }
\ No newline at end of file
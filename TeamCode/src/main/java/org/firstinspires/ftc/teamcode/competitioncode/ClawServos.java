@@ -0,0 +1,104 @@
+package org.firstinspires.ftc.teamcode.competitioncode;
+
+/**
+ * The four claw servos, driven together from a single claw position.
+ * Servo targets (position plus each servo's offset) are only recomputed when the claw position or
+ * an offset changes, and are sent at most once per servo update period. A standard servo only
+ * takes a new pulse every ~20ms (50 Hz), so writing faster just spends hub time for nothing.
+ * If a change arrives inside the period it is held and sent on the first call after the period.
+ */
+
+import com.qualcomm.robotcore.hardware.Servo;
+
+class ClawServos {
+
+    Servo leftBottomClaw;
+    Servo rightBottomClaw;
+    Servo leftTopClaw;
+    Servo rightTopClaw;
+
+    //  CLAW OFFSET. used to adjust to real values
+    double leftBottomOffset = 0.0; //Default ideal values, modified later
+    double rightBottomOffset = 1.0;
+    double leftTopOffset = 1.0;
+    double rightTopOffset = 0.0;
+
+    /**Minimum time between servo writes, in milliseconds. 20ms = 50 Hz, the servos' real update rate.*/
+    double servoPeriodMs = 20;
+
+    private final HardwareWriteCache writeCache;
+    private final ClockTimer sinceLastWrite;
+
+    //Inputs the current targets were computed from. NaN forces the first computation.
+    private double computedPosition = Double.NaN;
+    private double computedLeftBottomOffset, computedRightBottomOffset, computedLeftTopOffset, computedRightTopOffset;
+    private double leftBottomTarget, rightBottomTarget, leftTopTarget, rightTopTarget;
+    private boolean writePending = false;
+
+    /* Constructor */
+    ClawServos(Servo leftBottomClaw, Servo rightBottomClaw, Servo leftTopClaw, Servo rightTopClaw,
+               HardwareWriteCache writeCache, RobotClock clock){
+        this.leftBottomClaw = leftBottomClaw;
+        this.rightBottomClaw = rightBottomClaw;
+        this.leftTopClaw = leftTopClaw;
+        this.rightTopClaw = rightTopClaw;
+        this.writeCache = writeCache;
+        this.sinceLastWrite = new ClockTimer(clock);
+    }
+
+    void setClock(RobotClock clock) {
+        sinceLastWrite.setClock(clock);
+    }
+
+    /**Called every loop with the wanted claw position. Cheap when nothing changed.*/
+    void moveTo(double toPosition) {
+        if (toPosition != computedPosition
+                || leftBottomOffset != computedLeftBottomOffset
+                || rightBottomOffset != computedRightBottomOffset
+                || leftTopOffset != computedLeftTopOffset
+                || rightTopOffset != computedRightTopOffset) {
+            computeTargets(toPosition);
+            writePending = true;
+        }
+        if (writePending && sinceLastWrite.milliseconds() >= servoPeriodMs)
+            writeTargets();
+    }
+
+    /**Sends the current targets right away, ignoring the servo period. Use when the claw must be in
+     * place before something else happens (init, end of autonomous).*/
+    void flush() {
+        if (writePending)
+            writeTargets();
+    }
+
+    /**Forget what was sent, so the next moveTo writes all four servos.*/
+    void invalidate() {
+        computedPosition = Double.NaN;
+    }
+
+    double getPosition() {
+        return computedPosition;
+    }
+
+    private void computeTargets(double toPosition) {
+        computedPosition = toPosition;
+        computedLeftBottomOffset = leftBottomOffset;
+        computedRightBottomOffset = rightBottomOffset;
+        computedLeftTopOffset = leftTopOffset;
+        computedRightTopOffset = rightTopOffset;
+
+        leftBottomTarget = leftBottomOffset + toPosition;
+        rightBottomTarget = rightBottomOffset - toPosition;
+        leftTopTarget = leftTopOffset - toPosition;
+        rightTopTarget = rightTopOffset + toPosition;
+    }
+
+    private void writeTargets() {
+        writeCache.setPosition(leftBottomClaw, leftBottomTarget);
+        writeCache.setPosition(rightBottomClaw, rightBottomTarget);
+        writeCache.setPosition(leftTopClaw, leftTopTarget);
+        writeCache.setPosition(rightTopClaw, rightTopTarget);
+        writePending = false;
+        sinceLastWrite.reset();
+    }
+}
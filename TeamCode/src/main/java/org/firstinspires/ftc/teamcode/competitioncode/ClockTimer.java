@@ -0,0 +1,30 @@
+package org.firstinspires.ftc.teamcode.competitioncode;
+
+/**
+ * ElapsedTime that reads a RobotClock, so timers follow a virtual clock in simulation.
+ */
+
+import com.qualcomm.robotcore.util.ElapsedTime;
+
+class ClockTimer extends ElapsedTime {
+
+    private RobotClock clock;
+
+    /* Constructor */
+    ClockTimer(RobotClock clock){
+        super();
+        this.clock = clock;
+        reset(); //super() already reset, but before clock was set
+    }
+
+    /**Switches clocks and restarts the timer, since the old start time means nothing on the new clock.*/
+    void setClock(RobotClock clock) {
+        this.clock = clock;
+        reset();
+    }
+
+    @Override
+    protected long nsNow() {
+        return clock == null ? System.nanoTime() : clock.nanoTime(); //null only while super() runs
+    }
+}
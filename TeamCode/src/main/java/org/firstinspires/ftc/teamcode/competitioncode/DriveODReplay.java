@@ -0,0 +1,49 @@
+package org.firstinspires.ftc.teamcode.competitioncode;
+
+/**
+ * DriveOD, driven by the last recording DriveOD saved instead of by gamepad1.
+ * Runs the same control pipeline on the real robot, so a driving problem can be repeated exactly,
+ * or the robot's run compared against the simulator's (see DriveReplaySim in TeamCodeBench).
+ * Stops on its own when the recording runs out. Nothing is recorded while replaying.
+ */
+
+import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
+import com.qualcomm.robotcore.eventloop.opmode.Disabled; // Leave this line here even when not used, please
+import com.qualcomm.robotcore.hardware.Gamepad;
+import com.qualcomm.robotcore.util.RobotLog;
+
+import java.io.File;
+import java.io.IOException;
+
+@TeleOp(name="DriveOD Replay", group="OD")
+//@Disabled         //Enables or disables such OpMode (hide or show on Driver Station OpMode List)
+
+public class DriveODReplay extends DriveOD {
+
+    GamepadReplay replay = null;
+
+    @Override
+    public void runOpMode() {
+        recordInput = false;
+        File file = GamepadReplay.latest(GamepadRecorder.recordingFolder(), RECORDING_NAME + "-");
+        try {
+            if (file != null)
+                replay = new GamepadReplay(file);
+        } catch (IOException e) {
+            RobotLog.ee("DriveODReplay", e, "Could not read %s", file);
+        }
+        if (replay == null) {
+            telemetry.addData("Status", "No DriveOD recording in %s", GamepadRecorder.recordingFolder());
+            telemetry.update();
+            waitForStart();
+            return;
+        }
+        RobotLog.ii("DriveODReplay", "Replaying %d frames from %s", replay.size(), file);
+        super.runOpMode();
+    }
+
+    @Override
+    Gamepad nextInput() {
+        return replay.hasNext() ? replay.next() : null;
+    }
+}
\ No newline at end of file
@@ -7,6 +7,12 @@ package org.firstinspires.ftc.teamcode.competitioncode;
 import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
 import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
 import com.qualcomm.robotcore.eventloop.opmode.Disabled; // Leave this line here even when not used, please
+import com.qualcomm.robotcore.hardware.Gamepad;
+import com.qualcomm.robotcore.util.ElapsedTime;
+import com.qualcomm.robotcore.util.RobotLog;
+
+import java.io.File;
+import java.io.IOException;
 
 @TeleOp(name="DriveRWD", group="RWD")
 //@Disabled         //Enables or disables such OpMode (hide or show on Driver Station OpMode List)
@@ -16,64 +22,197 @@ public class DriveRWD extends LinearOpMode {
     Hardware_RWD_RearWheelDrive r = new Hardware_RWD_RearWheelDrive(); //Use the shared hardware and function code.
     General12772 g = new General12772(); //Use the shared general robot code.
 
+    //Runs the loop at a fixed rate. Raise it until overruns start showing up on telemetry.
+    LoopScheduler loop = new LoopScheduler(50);
+    //Time spent working in each loop. Press back to turn the write cache off/on and compare.
+    ElapsedTime loopTimer = new ElapsedTime();
+    double averageLoopMs = 0;
+    //Per-stage timing of the loop, p50/p99/max shown on telemetry and logged when the OP mode ends.
+    static final int STAGE_READ = 0, STAGE_INPUT = 1, STAGE_POV = 2, STAGE_ARM = 3, STAGE_CLAW = 4,
+            STAGE_UPDATE = 5, STAGE_TELEMETRY = 6;
+    LoopProfiler profiler = new LoopProfiler(
+            "readState", "debounce", "povDrive", "arm", "claw", "update", "telemetry");
+    //Telemetry is only formatted and sent a few times a second, the Driver Station can't show more anyway.
+    TelemetryPublisher publisher = null; //Needs telemetry, made in runOpMode()
+    int statusLine, speedLine, hubWritesLine, modeWritesLine, loopTimeLine, loopRateLine, powerLine, armLine,
+            servoLine, offsetLine, firstProfileLine;
+    //gamepad1 is recorded every cycle and saved when the OP mode ends, for DriveRWDReplay and simulation.
+    static final String RECORDING_NAME = "DriveRWD";
+    boolean recordInput = true;
+    GamepadRecorder recorder = new GamepadRecorder(RECORDING_NAME, 15000); //5 minutes at 50 Hz
+    //Logs r.state every cycle to FIRST/flightlogs from a background thread. See FlightRecorder.
+    FlightRecorder flight = new FlightRecorder(RECORDING_NAME, r.state.driveEncoders.length, 4096);
+
     @Override //Does anyone know what this is or what it does?
     public void runOpMode() {
+        r.continueSavedZeros = true; //keep the arm's zero from autonomous
         r.init(hardwareMap, false); //initialization for non-autonomous code. NO SHAKES ALLOWED >:(
+        r.initTimes.log(RECORDING_NAME);
         g.init();
-        r.clawsPOS = 0.5;  //Claws are set to an extended position
-//        r.initClawServosPOS(r.clawsPOS); //"When you try your best but you don't succeed..."
-        //Can't get r.initClawServosPOS to work, so manually set offsets below. See method for details on not working.
-        r.leftBottomClawOffset = 0.0;
-        r.rightBottomClawOffset = 1.0;
-        r.leftTopClawOffset = 1.0;
-        r.rightTopClawOffset = 0.0;
+        setUpClaw();
+        initTelemetry();
 
         // Wait for the game to start (driver presses PLAY)
         waitForStart();
         r.runtime.reset();
+        loop.start();
+        startFlightRecorder();
 
         // run until the end of the match (driver presses STOP)
-        while (opModeIsActive()) {
-
-            //Control drive motors
-            r.setDriveSpeedWithButtons(
-                    g.debounce(gamepad1.a,1,8),
-                    g.debounce(gamepad1.b,1,7));
-            r.povDrive(gamepad1.left_stick_x, gamepad1.left_stick_y, r.driveSpeedStick);
-
-            //Control Arm power and/or position
-            r.setArmPositionJoystick(
-                    gamepad1.right_stick_y,
-                    g.debounce(gamepad1.right_stick_button,1,11),
-                    gamepad1.start);
-
-            //Control claw position
-            r.setServoPositionTwoButton(gamepad1.left_bumper, gamepad1.right_bumper, gamepad1.left_stick_button);
-
-            //All runtime code in Hardware_RWD_RearWheelDrive
-            r.update();
-
-            //BEGIN TELEMETRY SECTION. TELEMETRY WILL NOT WORK IF REFERENCED TO Hardware_RWD_RearWheelDrive.java FOR SOME REASON!
-            //I think its because telemetry is provided by TeleOP library, which only OP mode classes can use.
-            telemetry.addData("Status",
-                    "Run Time: " + r.runtime.toString()
-            );
-            telemetry.addData("Drive Speed", r.driveSpeedStick);
-            telemetry.addData("Motor Power",
-                    " leftDrive: " + r.leftDrive.getPower() +
-                           " rightDrive: " + r.rightDrive.getPower() +
-                           " Arm: " + r.mainArm.getPower()
-            );
-            telemetry.addData("Servo POS",
-                    " clawPOS: " + r.clawsPOS +
-                           " leftBottomClaw: " + r.leftBottomClaw.getPosition() +
-                           " rightBottomClaw: " + r.rightBottomClaw.getPosition()
-            );
-            telemetry.addData("ClawOffsets",
-                    "left: " + r.leftBottomClawOffset +
-                           " right: " + r.rightBottomClawOffset
-            );
-            telemetry.update();
+        try {
+            while (opModeIsActive()) {
+                if (!runCycle())
+                    break; //Replay ran out
+            }
+        } finally {
+            flight.stop(); //never leave the flusher thread running
+        }
+        profiler.report(telemetry, "DriveRWD");
+        if (recordInput)
+            saveRecording();
+    }
+
+    /**One pass of the OP mode loop: waits for the cycle's start time, runs controlStep() on nextInput(),
+     * then telemetry and the flight recorder. Returns false if there is no input left.*/
+    boolean runCycle() {
+        loop.waitForNextCycle();
+        loopTimer.reset();
+        Gamepad input = nextInput();
+        if (input == null)
+            return false;
+        controlStep(input);
+
+        //BEGIN TELEMETRY SECTION. TELEMETRY WILL NOT WORK IF REFERENCED TO Hardware_RWD_RearWheelDrive.java FOR SOME REASON!
+        //I think its because telemetry is provided by TeleOP library, which only OP mode classes can use.
+        if (publisher.isDue())
+            publishTelemetry();
+        profiler.mark(STAGE_TELEMETRY);
+        double loopMs = loopTimer.milliseconds();
+        averageLoopMs += (loopMs - averageLoopMs) * 0.05; //smoothed over ~20 loops
+        flight.record(r.state, loopMs);
+        return true;
+    }
+
+    void setUpClaw() {
+        r.clawsPOS = 0.5;  //Claws are set to an extended position
+//        r.initClawServosPOS(r.clawsPOS); //"When you try your best but you don't succeed..."
+        //Can't get r.initClawServosPOS to work, so manually set offsets below. See method for details on not working.
+        r.claw.leftBottomOffset = 0.0;
+        r.claw.rightBottomOffset = 1.0;
+        r.claw.leftTopOffset = 1.0;
+        r.claw.rightTopOffset = 0.0;
+    }
+
+    void startFlightRecorder() {
+        try {
+            flight.startOnRobot();
+        } catch (IOException e) {
+            RobotLog.ee("DriveRWD", e, "Could not start the flight recorder, running without it");
         }
     }
+
+    /**This cycle's input: gamepad1, recorded as we go. DriveRWDReplay plays a recording back instead.
+     * Returns null when there is no more input.*/
+    Gamepad nextInput() {
+        if (recordInput)
+            recorder.record(loop.nanoTime(), gamepad1);
+        return gamepad1;
+    }
+
+    /**One pass of the control pipeline, from reading the robot to writing the hub. The same code runs
+     * for live driving, for replay on the robot, and for replay in simulation.*/
+    void controlStep(Gamepad pad) {
+        profiler.startCycle();
+        r.readState(); //Everything below reads sensors from r.state
+        profiler.mark(STAGE_READ);
+
+        //Debounce buttons
+        if (g.debounce(pad.back,1,13))
+            r.writeCache.enabled = !r.writeCache.enabled;
+        boolean speedUp = g.debounce(pad.a,1,8);
+        boolean speedDown = g.debounce(pad.b,1,7);
+        boolean toggleArmHolding = g.debounce(pad.right_stick_button,1,11);
+        profiler.mark(STAGE_INPUT);
+
+        //Control drive motors
+        r.setDriveSpeedWithButtons(speedUp, speedDown);
+        r.povDrive(pad.left_stick_x, pad.left_stick_y, r.driveSpeedStick);
+        profiler.mark(STAGE_POV);
+
+        //Control Arm power and/or position
+        r.setArmPositionJoystick(
+                pad.right_stick_y,
+                toggleArmHolding,
+                pad.start);
+        profiler.mark(STAGE_ARM);
+
+        //Control claw position
+        r.setServoPositionTwoButton(pad.left_bumper, pad.right_bumper, pad.left_stick_button);
+        profiler.mark(STAGE_CLAW);
+
+        //All runtime code in Hardware_RWD_RearWheelDrive
+        r.update();
+        profiler.mark(STAGE_UPDATE);
+    }
+
+    void saveRecording() {
+        try {
+            File file = recorder.saveToRobot();
+            RobotLog.ii("DriveRWD", "Saved %d gamepad frames (%d dropped) to %s", recorder.size(), recorder.dropped, file);
+        } catch (IOException e) {
+            RobotLog.ee("DriveRWD", e, "Could not save the gamepad recording");
+        }
+    }
+
+    private void initTelemetry() {
+        publisher = new TelemetryPublisher(telemetry, 5);
+        publisher.clock = r.clock;
+        statusLine = publisher.addLine("Status");
+        speedLine = publisher.addLine("Drive Speed");
+        hubWritesLine = publisher.addLine("Hub Writes");
+        modeWritesLine = publisher.addLine("Mode Writes");
+        loopTimeLine = publisher.addLine("Loop Time");
+        loopRateLine = publisher.addLine("Loop Rate");
+        powerLine = publisher.addLine("Motor Power");
+        armLine = publisher.addLine("Arm POS");
+        servoLine = publisher.addLine("Servo POS");
+        offsetLine = publisher.addLine("ClawOffsets");
+        firstProfileLine = publisher.addLine(profiler.stageNames[0]);
+        for (int stage = 1; stage < profiler.stageNames.length; stage++)
+            publisher.addLine(profiler.stageNames[stage]);
+    }
+
+    private void publishTelemetry() {
+        TelemetryPublisher.appendFixed(publisher.line(statusLine).append("Run Time: "), r.runtime.seconds(), 1);
+        TelemetryPublisher.appendFixed(publisher.line(speedLine), r.driveSpeedStick, 2);
+        TelemetryPublisher.appendFixed(publisher.line(hubWritesLine).append(r.writeCache.writesSent)
+                .append(" sent, ").append(r.writeCache.writesSkipped).append(" skipped ("),
+                r.writeCache.skippedPercent(), 0).append("%)");
+        publisher.line(modeWritesLine).append(r.writeCache.modeWritesSent)
+                .append(" sent, ").append(r.writeCache.modeWritesSkipped).append(" skipped");
+        TelemetryPublisher.appendFixed(publisher.line(loopTimeLine), averageLoopMs, 1)
+                .append(" ms (cache ").append(r.writeCache.enabled ? "on" : "off").append(')');
+        StringBuilder rate = publisher.line(loopRateLine);
+        TelemetryPublisher.appendFixed(rate, loop.measuredPeriodMs, 1).append(" ms period, ");
+        TelemetryPublisher.appendFixed(rate, loop.jitterMs, 2).append(" ms jitter (max ");
+        TelemetryPublisher.appendFixed(rate, loop.maxJitterMs, 1).append("), ")
+                .append(loop.overruns).append(" overruns");
+        StringBuilder power = publisher.line(powerLine);
+        TelemetryPublisher.appendFixed(power.append("leftDrive: "), r.state.drivePowers[Hardware_RWD_RearWheelDrive.LEFT], 2);
+        TelemetryPublisher.appendFixed(power.append(" rightDrive: "), r.state.drivePowers[Hardware_RWD_RearWheelDrive.RIGHT], 2);
+        TelemetryPublisher.appendFixed(power.append(" Arm: "), r.state.armPower, 2);
+        publisher.line(armLine).append(r.state.armPosition);
+        StringBuilder servo = publisher.line(servoLine);
+        TelemetryPublisher.appendFixed(servo.append("clawPOS: "), r.state.clawPosition, 2);
+        TelemetryPublisher.appendFixed(servo.append(" leftBottomClaw: "),
+                r.claw.leftBottomOffset + r.state.clawPosition, 2);
+        TelemetryPublisher.appendFixed(servo.append(" rightBottomClaw: "),
+                r.claw.rightBottomOffset - r.state.clawPosition, 2);
+        StringBuilder offsets = publisher.line(offsetLine);
+        TelemetryPublisher.appendFixed(offsets.append("left: "), r.claw.leftBottomOffset, 2);
+        TelemetryPublisher.appendFixed(offsets.append(" right: "), r.claw.rightBottomOffset, 2);
+        for (int stage = 0; stage < profiler.stageNames.length; stage++)
+            profiler.appendStage(publisher.line(firstProfileLine + stage), stage);
+        publisher.publish();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,87 @@
+package org.firstinspires.ftc.teamcode.competitioncode;
+
+/**
+ * Software encoder zeroing. Instead of switching every motor to RESET_ENCODERS and back during init
+ * (two mode writes per motor, and the reset takes a while to land on the hub), each motor's count is
+ * read once and remembered as its zero. Positions read through position() are relative to it, and
+ * targets sent to the hub go through toHub().
+ * Baselines are also saved by robot and motor name for as long as the app runs, so TeleOP can keep
+ * counting from where autonomous zeroed instead of losing the arm's resting position. Power cycling
+ * a hub (or swapping its battery) starts its counts over at 0 while the app keeps the saved zeros,
+ * so continueOrZero() only trusts a saved zero if the motor reads within LOWEST_SAVED_POSITION to
+ * HIGHEST_SAVED_POSITION of it, and zeroes it again otherwise. It can only miss a reset if the
+ * saved zero was itself that close to 0, and then it is off by at most that much.
+ */
+
+import com.qualcomm.robotcore.hardware.DcMotor;
+import com.qualcomm.robotcore.util.RobotLog;
+
+import java.util.HashMap;
+
+class EncoderBaselines {
+
+    //Kept across OP modes. Only touched from OP mode init, which never runs two at a time.
+    private static final HashMap<String, Integer> saved = new HashMap<>();
+    //Where a motor with a saved zero can plausibly be when TeleOP starts, e.g. the arm near rest.
+    static final int LOWEST_SAVED_POSITION = -100, HIGHEST_SAVED_POSITION = 500;
+
+    private final DcMotor[] motors;
+    private final String[] keys; //robot/motor, so robots sharing motor names don't share zeros
+    private final int[] baselines;
+
+    /* Constructor */
+    EncoderBaselines(String robot, DcMotor[] motors, String[] names){
+        this.motors = motors;
+        keys = new String[names.length];
+        for (int i = 0; i < names.length; i++)
+            keys[i] = robot + "/" + names[i];
+        baselines = new int[motors.length];
+    }
+
+    /**Makes every motor's current count its zero, one read each, and saves them for later OP modes.*/
+    void zero() {
+        for (int i = 0; i < motors.length; i++) {
+            baselines[i] = motors[i].getCurrentPosition();
+            saved.put(keys[i], baselines[i]);
+        }
+    }
+
+    /**Uses the zeros an earlier OP mode saved, e.g. autonomous before TeleOP, for the motors from
+     * index first on. The ones before it, those without a saved zero, and those whose hub was reset
+     * (see above) are zeroed where they are now.*/
+    void continueOrZero(int first) {
+        for (int i = 0; i < motors.length; i++) {
+            int count = motors[i].getCurrentPosition();
+            Integer baseline = i >= first ? saved.get(keys[i]) : null;
+            if (baseline != null && (count - baseline < LOWEST_SAVED_POSITION || count - baseline > HIGHEST_SAVED_POSITION)) {
+                RobotLog.ii("EncoderBaselines", "%s reads %d from its saved zero, hub probably reset. Zeroing it again.",
+                        keys[i], count - baseline);
+                baseline = null;
+            }
+            if (baseline == null) {
+                baseline = count;
+                saved.put(keys[i], baseline);
+            }
+            baselines[i] = baseline;
+        }
+    }
+
+    /**Reads motor index's position relative to its zero. One hub read.*/
+    int position(int index) {
+        return motors[index].getCurrentPosition() - baselines[index];
+    }
+
+    /**Converts a position relative to zero into the hub's count, for setTargetPosition().*/
+    int toHub(int index, int position) {
+        return position + baselines[index];
+    }
+
+    int baseline(int index) {
+        return baselines[index];
+    }
+
+    /**Forgets the saved zeros, so the next OP mode starts fresh. Use after power cycling a hub.*/
+    static void forgetSaved() {
+        saved.clear();
+    }
+}
\ No newline at end of file
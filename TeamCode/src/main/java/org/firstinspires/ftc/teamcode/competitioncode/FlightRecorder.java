@@ -0,0 +1,244 @@
+package org.firstinspires.ftc.teamcode.competitioncode;
+
+/**
+ * Always-on log of what the robot did, one row per control cycle, for looking at after a match.
+ * The control thread copies RobotState into a ring of primitive columns allocated up front: no locks,
+ * no allocation, no file system. A background thread drains the ring to a file a few times a second
+ * through one reused direct ByteBuffer and a FileChannel, so a slow SD card write never stalls the loop.
+ * Single producer (the OP mode thread), single consumer (the flusher). The two only share the written
+ * and flushed counters; lazySet publishes a row after its columns are filled.
+ * If the flusher falls a whole ring behind, new rows are counted in dropped instead of overwriting
+ * rows that haven't been written yet.
+ * File format, big-endian:
+ *     int    MAGIC ("FLT1")
+ *     UTF    name of the OP mode, e.g. "DriveOD" (2 byte length, then the characters)
+ *     int    drive motor count, n
+ *     per row, 36 + 8n bytes:
+ *         long   timestamp, nanoseconds (RobotState.timestampNanos)
+ *         long   cycle number
+ *         int    autonomous procedure step, -1 in TeleOP (RobotState.procedureStep)
+ *         float  loop time, milliseconds
+ *         float  drive powers, n of them, in the hardware class' drive motor order
+ *         int    drive encoders, n of them
+ *         float  arm power
+ *         int    arm position
+ *         float  claw position
+ * Rows run until the end of the file, the row count is not stored.
+ */
+
+import com.qualcomm.robotcore.util.RobotLog;
+
+import org.firstinspires.ftc.robotcore.internal.system.AppUtil;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+class FlightRecorder {
+
+    static final int MAGIC = 0x464C5431; //"FLT1"
+    static final String FILE_EXTENSION = ".flt";
+    static final int FLUSH_PERIOD_MS = 100;
+    static final int STOP_TIMEOUT_MS = 500; //stop() waits this long for the last drain
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    final String name;
+    final int driveMotorCount;
+    final int capacity;
+    /**Rows that didn't fit because the flusher was a whole ring behind. Control thread only.*/
+    long dropped = 0;
+    /**Set by the flusher if writing failed. Rows are then drained and thrown away.*/
+    volatile IOException error = null;
+
+    //Ring columns, row i lives at i & mask
+    private final int mask;
+    private final long[] timestamps;
+    private final long[] cycles;
+    private final int[] steps;
+    private final float[] loopMs;
+    private final float[] drivePowers;
+    private final int[] driveEncoders;
+    private final float[] armPowers;
+    private final int[] armPositions;
+    private final float[] clawPositions;
+
+    private final AtomicLong written = new AtomicLong(); //rows the control thread has finished
+    private final AtomicLong flushed = new AtomicLong(); //rows the flusher has taken
+    private volatile boolean running = false;
+    private Thread flusher = null;
+    private FileChannel channel = null;
+    private ByteBuffer buffer = null;
+
+    /* Constructor */
+    FlightRecorder(String name, int driveMotorCount, int capacity){
+        if (Integer.bitCount(capacity) != 1)
+            throw new IllegalArgumentException("capacity must be a power of two, not " + capacity);
+        this.name = name;
+        this.driveMotorCount = driveMotorCount;
+        this.capacity = capacity;
+        mask = capacity - 1;
+        timestamps = new long[capacity];
+        cycles = new long[capacity];
+        steps = new int[capacity];
+        loopMs = new float[capacity];
+        drivePowers = new float[capacity * driveMotorCount];
+        driveEncoders = new int[capacity * driveMotorCount];
+        armPowers = new float[capacity];
+        armPositions = new int[capacity];
+        clawPositions = new float[capacity];
+    }
+
+    /**Folder on the RC phone logs are saved to, FIRST/flightlogs.*/
+    static File logFolder() {
+        return new File(AppUtil.FIRST_FOLDER, "flightlogs");
+    }
+
+    /**Starts logging into logFolder() as name-date.flt and returns the file.*/
+    File startOnRobot() throws IOException {
+        String date = new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(new Date());
+        File file = new File(logFolder(), name + "-" + date + FILE_EXTENSION);
+        start(file);
+        return file;
+    }
+
+    void start(File file) throws IOException {
+        File folder = file.getParentFile();
+        if (folder != null && !folder.isDirectory() && !folder.mkdirs())
+            throw new IOException("Could not create " + folder);
+        channel = new FileOutputStream(file).getChannel();
+        buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        buffer.putInt(MAGIC);
+        byte[] nameBytes = name.getBytes("UTF-8");
+        buffer.putShort((short) nameBytes.length).put(nameBytes);
+        buffer.putInt(driveMotorCount);
+        running = true;
+        flusher = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                flushLoop();
+            }
+        }, "FlightRecorder");
+        flusher.setPriority(Thread.MIN_PRIORITY);
+        flusher.start();
+    }
+
+    /**Call once per cycle from the control thread, after update().*/
+    void record(RobotState state, double loopTimeMs) {
+        if (!running)
+            return;
+        long row = written.get();
+        if (row - flushed.get() >= capacity) {
+            dropped++;
+            return;
+        }
+        int slot = (int) row & mask;
+        timestamps[slot] = state.timestampNanos;
+        cycles[slot] = state.cycleCount;
+        steps[slot] = state.procedureStep;
+        loopMs[slot] = (float) loopTimeMs;
+        int motor = slot * driveMotorCount;
+        for (int i = 0; i < driveMotorCount; i++) {
+            drivePowers[motor + i] = (float) state.drivePowers[i];
+            driveEncoders[motor + i] = state.driveEncoders[i];
+        }
+        armPowers[slot] = (float) state.armPower;
+        armPositions[slot] = state.armPosition;
+        clawPositions[slot] = (float) state.clawPosition;
+        written.lazySet(row + 1); //columns above are visible to the flusher before the new count
+    }
+
+    static int rowBytes(int driveMotorCount) {
+        return 36 + 8 * driveMotorCount;
+    }
+
+    long rowsWritten() {
+        return written.get();
+    }
+
+    /**Writes whatever is left and closes the file. Call when the OP mode loop ends.
+     * Stop interrupts the OP mode thread, which would make join() give up before the last drain, so
+     * the interrupt is put aside while waiting (at most STOP_TIMEOUT_MS) and restored afterwards.*/
+    void stop() {
+        if (!running)
+            return;
+        running = false;
+        boolean interrupted = Thread.interrupted();
+        long deadline = System.nanoTime() + STOP_TIMEOUT_MS * 1000000L;
+        long remainingMs;
+        while (flusher.isAlive() && (remainingMs = (deadline - System.nanoTime()) / 1000000) > 0) {
+            try {
+                flusher.join(remainingMs);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+        RobotLog.ii("FlightRecorder", "%s: %d rows, %d dropped%s%s", name, written.get(), dropped,
+                flusher.isAlive() ? ", still writing" : "",
+                error == null ? "" : ", write failed: " + error);
+    }
+
+    private void flushLoop() {
+        try {
+            boolean stopping = false;
+            while (!stopping) {
+                stopping = !running; //one last drain after stop()
+                drain();
+                if (!stopping)
+                    Thread.sleep(FLUSH_PERIOD_MS);
+            }
+        } catch (InterruptedException e) {
+            drain();
+        } finally {
+            try {
+                writeBuffer();
+                channel.close();
+            } catch (IOException e) {
+                if (error == null)
+                    error = e;
+            }
+        }
+    }
+
+    private void drain() {
+        long end = written.get();
+        int rowBytes = rowBytes(driveMotorCount);
+        for (long row = flushed.get(); row < end; row++) {
+            int slot = (int) row & mask;
+            if (buffer.remaining() < rowBytes)
+                writeBuffer();
+            buffer.putLong(timestamps[slot]);
+            buffer.putLong(cycles[slot]);
+            buffer.putInt(steps[slot]);
+            buffer.putFloat(loopMs[slot]);
+            int motor = slot * driveMotorCount;
+            for (int i = 0; i < driveMotorCount; i++)
+                buffer.putFloat(drivePowers[motor + i]);
+            for (int i = 0; i < driveMotorCount; i++)
+                buffer.putInt(driveEncoders[motor + i]);
+            buffer.putFloat(armPowers[slot]);
+            buffer.putInt(armPositions[slot]);
+            buffer.putFloat(clawPositions[slot]);
+        }
+        flushed.lazySet(end); //slots up to end can be reused, they're copied into the buffer
+        writeBuffer();
+    }
+
+    private void writeBuffer() {
+        buffer.flip();
+        try {
+            while (error == null && buffer.hasRemaining())
+                channel.write(buffer);
+        } catch (IOException e) {
+            error = e;
+        }
+        buffer.clear();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,169 @@
+package org.firstinspires.ftc.teamcode.competitioncode;
+
+/**
+ * Records a gamepad once per control cycle, for replaying a driver session later with GamepadReplay.
+ * Frames go into arrays allocated up front, so recording costs a few array stores per loop and never
+ * touches the file system. save() writes them out after the OP mode loop has ended.
+ * File format, big-endian (DataOutputStream):
+ *     int    MAGIC ("GPR1")
+ *     UTF    name of the OP mode that recorded it, e.g. "DriveOD"
+ *     int    frame count
+ *     per frame, 36 bytes:
+ *         long   nanoseconds since the first frame
+ *         float  left_stick_x, left_stick_y, right_stick_x, right_stick_y, left_trigger, right_trigger
+ *         int    buttons, one bit each, see the BUTTON_ constants
+ * Once full, further frames are counted in dropped and not stored.
+ */
+
+import com.qualcomm.robotcore.hardware.Gamepad;
+
+import org.firstinspires.ftc.robotcore.internal.system.AppUtil;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+class GamepadRecorder {
+
+    static final int MAGIC = 0x47505231; //"GPR1"
+    static final int AXES = 6;
+    static final String FILE_EXTENSION = ".gpr";
+
+    static final int BUTTON_DPAD_UP = 1;
+    static final int BUTTON_DPAD_DOWN = 1 << 1;
+    static final int BUTTON_DPAD_LEFT = 1 << 2;
+    static final int BUTTON_DPAD_RIGHT = 1 << 3;
+    static final int BUTTON_A = 1 << 4;
+    static final int BUTTON_B = 1 << 5;
+    static final int BUTTON_X = 1 << 6;
+    static final int BUTTON_Y = 1 << 7;
+    static final int BUTTON_GUIDE = 1 << 8;
+    static final int BUTTON_START = 1 << 9;
+    static final int BUTTON_BACK = 1 << 10;
+    static final int BUTTON_LEFT_BUMPER = 1 << 11;
+    static final int BUTTON_RIGHT_BUMPER = 1 << 12;
+    static final int BUTTON_LEFT_STICK = 1 << 13;
+    static final int BUTTON_RIGHT_STICK = 1 << 14;
+
+    long dropped = 0;
+
+    private final String name;
+    private final long[] timestamps;
+    private final float[] axes;
+    private final int[] buttons;
+    private int size = 0;
+    private long firstNanos;
+
+    /* Constructor */
+    GamepadRecorder(String name, int capacityFrames){
+        this.name = name;
+        timestamps = new long[capacityFrames];
+        axes = new float[capacityFrames * AXES];
+        buttons = new int[capacityFrames];
+    }
+
+    /**Call once per cycle with the gamepad the cycle is about to use.*/
+    void record(long nanoTime, Gamepad pad) {
+        if (size == timestamps.length) {
+            dropped++;
+            return;
+        }
+        if (size == 0)
+            firstNanos = nanoTime;
+        timestamps[size] = nanoTime - firstNanos;
+        int axis = size * AXES;
+        axes[axis] = pad.left_stick_x;
+        axes[axis + 1] = pad.left_stick_y;
+        axes[axis + 2] = pad.right_stick_x;
+        axes[axis + 3] = pad.right_stick_y;
+        axes[axis + 4] = pad.left_trigger;
+        axes[axis + 5] = pad.right_trigger;
+        buttons[size] = packButtons(pad);
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        size = 0;
+        dropped = 0;
+    }
+
+    /**Folder on the RC phone recordings are saved to, FIRST/recordings.*/
+    static File recordingFolder() {
+        return new File(AppUtil.FIRST_FOLDER, "recordings");
+    }
+
+    /**Saves into recordingFolder() as name-date.gpr and returns the file.*/
+    File saveToRobot() throws IOException {
+        String date = new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(new Date());
+        File file = new File(recordingFolder(), name + "-" + date + FILE_EXTENSION);
+        save(file);
+        return file;
+    }
+
+    void save(File file) throws IOException {
+        File folder = file.getParentFile();
+        if (folder != null && !folder.isDirectory() && !folder.mkdirs())
+            throw new IOException("Could not create " + folder);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeUTF(name);
+            out.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                out.writeLong(timestamps[i]);
+                for (int axis = i * AXES; axis < (i + 1) * AXES; axis++)
+                    out.writeFloat(axes[axis]);
+                out.writeInt(buttons[i]);
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    static int packButtons(Gamepad pad) {
+        int packed = 0;
+        if (pad.dpad_up) packed |= BUTTON_DPAD_UP;
+        if (pad.dpad_down) packed |= BUTTON_DPAD_DOWN;
+        if (pad.dpad_left) packed |= BUTTON_DPAD_LEFT;
+        if (pad.dpad_right) packed |= BUTTON_DPAD_RIGHT;
+        if (pad.a) packed |= BUTTON_A;
+        if (pad.b) packed |= BUTTON_B;
+        if (pad.x) packed |= BUTTON_X;
+        if (pad.y) packed |= BUTTON_Y;
+        if (pad.guide) packed |= BUTTON_GUIDE;
+        if (pad.start) packed |= BUTTON_START;
+        if (pad.back) packed |= BUTTON_BACK;
+        if (pad.left_bumper) packed |= BUTTON_LEFT_BUMPER;
+        if (pad.right_bumper) packed |= BUTTON_RIGHT_BUMPER;
+        if (pad.left_stick_button) packed |= BUTTON_LEFT_STICK;
+        if (pad.right_stick_button) packed |= BUTTON_RIGHT_STICK;
+        return packed;
+    }
+
+    static void unpackButtons(int packed, Gamepad pad) {
+        pad.dpad_up = (packed & BUTTON_DPAD_UP) != 0;
+        pad.dpad_down = (packed & BUTTON_DPAD_DOWN) != 0;
+        pad.dpad_left = (packed & BUTTON_DPAD_LEFT) != 0;
+        pad.dpad_right = (packed & BUTTON_DPAD_RIGHT) != 0;
+        pad.a = (packed & BUTTON_A) != 0;
+        pad.b = (packed & BUTTON_B) != 0;
+        pad.x = (packed & BUTTON_X) != 0;
+        pad.y = (packed & BUTTON_Y) != 0;
+        pad.guide = (packed & BUTTON_GUIDE) != 0;
+        pad.start = (packed & BUTTON_START) != 0;
+        pad.back = (packed & BUTTON_BACK) != 0;
+        pad.left_bumper = (packed & BUTTON_LEFT_BUMPER) != 0;
+        pad.right_bumper = (packed & BUTTON_RIGHT_BUMPER) != 0;
+        pad.left_stick_button = (packed & BUTTON_LEFT_STICK) != 0;
+        pad.right_stick_button = (packed & BUTTON_RIGHT_STICK) != 0;
+    }
+}
@@ -0,0 +1,93 @@
+package org.firstinspires.ftc.teamcode.competitioncode;
+
+/**
+ * Plays back a GamepadRecorder file, one frame per control cycle, through a single reused Gamepad.
+ * Frames are fed by cycle, not by time, so the control code sees exactly the same sequence of
+ * inputs (and button edges) it saw when recording. Each frame's recorded timestamp is still
+ * available, to pace a simulation or compare loop timing against the original session.
+ */
+
+import com.qualcomm.robotcore.hardware.Gamepad;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+class GamepadReplay {
+
+    final String name;
+
+    private final long[] timestamps;
+    private final float[] axes;
+    private final int[] buttons;
+    private final Gamepad pad = new Gamepad();
+    private int next = 0;
+
+    /* Constructor */
+    GamepadReplay(File file) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            if (in.readInt() != GamepadRecorder.MAGIC)
+                throw new IOException(file + " is not a gamepad recording");
+            name = in.readUTF();
+            int size = in.readInt();
+            timestamps = new long[size];
+            axes = new float[size * GamepadRecorder.AXES];
+            buttons = new int[size];
+            for (int i = 0; i < size; i++) {
+                timestamps[i] = in.readLong();
+                for (int axis = i * GamepadRecorder.AXES; axis < (i + 1) * GamepadRecorder.AXES; axis++)
+                    axes[axis] = in.readFloat();
+                buttons[i] = in.readInt();
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    /**Most recently modified recording in folder whose name starts with prefix, or null if none.*/
+    static File latest(File folder, String prefix) {
+        File[] files = folder.listFiles();
+        File latest = null;
+        if (files == null)
+            return null;
+        for (File file : files)
+            if (file.getName().startsWith(prefix) && file.getName().endsWith(GamepadRecorder.FILE_EXTENSION)
+                    && (latest == null || file.lastModified() > latest.lastModified()))
+                latest = file;
+        return latest;
+    }
+
+    int size() {
+        return timestamps.length;
+    }
+
+    boolean hasNext() {
+        return next < timestamps.length;
+    }
+
+    /**Recorded time of the frame next() will return, in nanoseconds since the first frame.*/
+    long nextTimestampNanos() {
+        return timestamps[next];
+    }
+
+    /**Loads the next frame into the shared Gamepad and returns it.*/
+    Gamepad next() {
+        int axis = next * GamepadRecorder.AXES;
+        pad.left_stick_x = axes[axis];
+        pad.left_stick_y = axes[axis + 1];
+        pad.right_stick_x = axes[axis + 2];
+        pad.right_stick_y = axes[axis + 3];
+        pad.left_trigger = axes[axis + 4];
+        pad.right_trigger = axes[axis + 5];
+        GamepadRecorder.unpackButtons(buttons[next], pad);
+        next++;
+        return pad;
+    }
+
+    void rewind() {
+        next = 0;
+    }
+}
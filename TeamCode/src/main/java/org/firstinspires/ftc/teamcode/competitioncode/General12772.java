@@ -15,6 +15,12 @@ class General12772 {
 
     String ourVuforiaLicenseKey = "AWQk7mb/////AAAAGZzcT2AtsU7fnFlKo1X5AwwP5Bwu/DPZnIJ6ObPBUoJBAbsK6ZofzC7u7b/ZzaqwD4GdQcla6Cmxqw+2a3u/X2kjfNh/jYnLnHX+vw8GEhgLmgUFPmG6ehcupHxQO+IImFWFdBXYfUIaIKcO0OxnZlg3A8OWthBsSVD3BpuIhkuYaY/pOKEZUalyf0NQepGxMa/n5iL4SYDVNQjmaKwj0lZZU2SNhr12qQWIBg3fF9b3HC33/OFGlQhjFrxYCAXzAV3LnOjptc0D0Y5g9CtQABxB3aoI7ZRkCmHpXpYtcKmq1MGFmzxKNjIL90bJcRJnP7IWyxC2hFzpiLvojC2MbJjDVtVW7jbStZhArGewsAqd";
 
+    //Omni-Direction robot's wheels sit at 45 degrees, so every x-y input is rotated by 5pi/4.
+    //Precomputed once so rotating is two multiply-adds per axis.
+    static final double OMNI_ROTATION = 5*Math.PI/4;
+    static final double OMNI_COS = Math.cos(OMNI_ROTATION);
+    static final double OMNI_SIN = Math.sin(OMNI_ROTATION);
+
     /* local OpMode members. */
     private ElapsedTime period = new ElapsedTime();
 
@@ -46,18 +52,36 @@ class General12772 {
                 hyp * Math.sin(theta),};
         return newCoords;
     }
-    /**Used by Omni-Direction robot to convert user-friendly x-y to physical i-j at 45 degree angle.*/
+    /**Used by Omni-Direction robot to convert user-friendly x-y to physical i-j at 45 degree angle.
+     * Allocates a new array every call, use the out-parameter version below in loops.*/
     double[] rotateCoords(double xin, double yin) {
-        return rotateCoords(xin,yin, 5*Math.PI/4);
+        double[] newCoords = new double[2];
+        rotateCoords(xin, yin, newCoords);
+        return newCoords;
+    }
+    /**Same as above, but writes i into out[0] and j into out[1] instead of allocating, and uses the
+     * precomputed rotation instead of atan2/hypot/cos/sin. Safe to call every loop.*/
+    void rotateCoords(double xin, double yin, double[] out) {
+        rotateCoords(xin, yin, OMNI_COS, OMNI_SIN, out);
+    }
+    /**Rotation by a fixed angle, given its precomputed cosine and sine. Same result as
+     * rotateCoords(xin, yin, deltaTheta) above, since with theta = atan2(-y, x):
+     *   hyp*cos(theta + d) = x*cos(d) + y*sin(d)
+     *   hyp*sin(theta + d) = x*sin(d) - y*cos(d)*/
+    static void rotateCoords(double xin, double yin, double cos, double sin, double[] out) {
+        out[0] = xin * cos + yin * sin;
+        out[1] = xin * sin - yin * cos;
     }
 
     /**Concatenate. Don't know which library could do this, so made my own.*/
     double[] concat(double[] a, double[] b){
         double out[] = new double[a.length + b.length];
-        for (int i = 0; i<a.length; i++)
-            out[i] = a[i];
-        for (int i = 0; i<b.length; i++)
-            out[i+a.length] = b[i];
+        concat(a, b, out);
         return out;
     }
+    /**Concatenate into an existing array, which must hold at least a.length + b.length values.*/
+    void concat(double[] a, double[] b, double[] out){
+        System.arraycopy(a, 0, out, 0, a.length);
+        System.arraycopy(b, 0, out, a.length, b.length);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,119 @@
+package org.firstinspires.ftc.teamcode.competitioncode;
+
+/**
+ * Write-through cache that sits between the hardware classes and the hubs.
+ * Every setPower/setPosition/setTargetPosition is a round trip to the hub, so a command is only
+ * sent when it moved by more than epsilon since the last one we actually sent.
+ * Run mode changes are tracked too, since a mode change is one of the slowest hub transactions.
+ * Counts sent and skipped writes so OP modes can show the savings in telemetry.
+ */
+
+import com.qualcomm.robotcore.hardware.DcMotor;
+import com.qualcomm.robotcore.hardware.HardwareDevice;
+import com.qualcomm.robotcore.hardware.Servo;
+
+import java.util.IdentityHashMap;
+
+class HardwareWriteCache {
+
+    /**Smallest change in power or servo position worth sending to the hub.*/
+    double epsilon = 0.005;
+    /**When false every write goes to the hub, like before the cache existed. Used to compare loop times.*/
+    boolean enabled = true;
+
+    long writesSent = 0;
+    long writesSkipped = 0;
+    long modeWritesSent = 0;
+    long modeWritesSkipped = 0;
+
+    //Last value actually sent to each device. Keyed by device object, one slot per device.
+    private final IdentityHashMap<HardwareDevice, double[]> lastValues = new IdentityHashMap<>();
+    private final IdentityHashMap<DcMotor, int[]> lastTargets = new IdentityHashMap<>();
+    private final IdentityHashMap<DcMotor, DcMotor.RunMode> lastModes = new IdentityHashMap<>();
+
+    /* Constructor */
+    HardwareWriteCache(){
+    }
+
+    void setPower(DcMotor motor, double power) {
+        double[] last = lastValues.get(motor);
+        if (enabled && last != null && !hasChanged(last[0], power)) {
+            writesSkipped++;
+            return;
+        }
+        motor.setPower(power);
+        remember(motor, last, power);
+    }
+
+    void setPosition(Servo servo, double position) {
+        double[] last = lastValues.get(servo);
+        if (enabled && last != null && !hasChanged(last[0], position)) {
+            writesSkipped++;
+            return;
+        }
+        servo.setPosition(position);
+        remember(servo, last, position);
+    }
+
+    void setTargetPosition(DcMotor motor, int position) {
+        int[] last = lastTargets.get(motor);
+        if (enabled && last != null && last[0] == position) {
+            writesSkipped++;
+            return;
+        }
+        motor.setTargetPosition(position);
+        if (last == null)
+            lastTargets.put(motor, new int[]{position});
+        else
+            last[0] = position;
+        writesSent++;
+    }
+
+    /**Only changes the run mode when it differs from the last one we set.
+     * Note RESET_ENCODERS/STOP_AND_RESET_ENCODER should still be sent directly, since they are actions.*/
+    void setMode(DcMotor motor, DcMotor.RunMode mode) {
+        if (enabled && lastModes.get(motor) == mode) {
+            modeWritesSkipped++;
+            return;
+        }
+        motor.setMode(mode);
+        lastModes.put(motor, mode);
+        modeWritesSent++;
+    }
+
+    /**Forget everything sent so far, so the next command to each device is always sent.
+     * Use after something outside the cache may have changed the device (mode switch, re-init).*/
+    void invalidate() {
+        lastValues.clear();
+        lastTargets.clear();
+        lastModes.clear();
+    }
+
+    void resetCounters() {
+        writesSent = 0;
+        writesSkipped = 0;
+        modeWritesSent = 0;
+        modeWritesSkipped = 0;
+    }
+
+    /**Percent of requested writes that never had to go to the hub.*/
+    double skippedPercent() {
+        long total = writesSent + writesSkipped;
+        return total == 0 ? 0.0 : 100.0 * writesSkipped / total;
+    }
+
+    private boolean hasChanged(double last, double next) {
+        //Always send an exact zero, so a motor is never left creeping at a tiny leftover power.
+        if (next == 0.0)
+            return last != 0.0;
+        return Math.abs(next - last) > epsilon;
+    }
+
+    private void remember(HardwareDevice device, double[] last, double value) {
+        if (last == null)
+            lastValues.put(device, new double[]{value});
+        else
+            last[0] = value;
+        writesSent++;
+    }
+}
@@ -1,22 +1,33 @@
 package org.firstinspires.ftc.teamcode.competitioncode;
 
 /**
- * Abstract hardware class.
+ * Abstract hardware class. Holds the drive state every drivetrain has, as parallel arrays indexed
+ * by wheel: the motors, the powers we command, and the positions and velocities readState() measures.
+ * Subclasses name the wheels with index constants (e.g. LEFT_REAR) and add their own arm and claw.
+ * readState(), update() and setDriveSpeed() loop over the arrays, so they work for any wheel count
+ * and never allocate.
  * TODO: Will this actually simplify code? IDK, maybe just interfaces would be better. Or maybe keep structure as is.
  */
 
 import com.qualcomm.robotcore.hardware.DcMotor;
 import com.qualcomm.robotcore.hardware.HardwareMap;
-import com.qualcomm.robotcore.hardware.Servo;
 import com.qualcomm.robotcore.util.ElapsedTime;
 import com.qualcomm.robotcore.util.Range;
 
 abstract class Hardware_12772 {
 
     // Declare OpMode members.
-    ElapsedTime runtime = new ElapsedTime();
-    DcMotor[] driveMotors;
-    double[] drivePowers;
+    //Time source for runtime, claw servo pacing and autonomous sleeps. See setClock().
+    RobotClock clock = RealClock.INSTANCE;
+    ClockTimer runtime = new ClockTimer(clock);
+
+    // DRIVE STATE. One entry per wheel, same index in every array.
+    final String[] driveNames;       //Names in the robot configuration, also the encoder zeros' names
+    final DcMotor[] driveMotors;     //Filled by mapDriveMotors() in init
+    final double[] drivePowers;      //Commanded. Only sent to the hub by update()
+    final int[] drivePositions;      //Ticks from zero, as of the last readState()
+    final double[] driveVelocities;  //Ticks per second between the last two readState()s
+    private long lastReadNanos = 0;
 
     // DRIVE SPEED
     double driveSpeedMin = 0.25;
@@ -24,22 +35,99 @@ abstract class Hardware_12772 {
     double driveSpeedMax = 1.0;
     double driveSpeedStick = driveSpeedMed;
 
+    // Only sends motor and servo commands that actually changed. See HardwareWriteCache.
+    HardwareWriteCache writeCache = new HardwareWriteCache();
+    // Filled once per cycle by readState(). Read this instead of the motors.
+    final RobotState state;
+    // Encoder zeros, drive motors first in wheel order, then any others. See EncoderBaselines.
+    EncoderBaselines encoders = null;
+    boolean continueSavedZeros = false; //TeleOP sets this before init(), see initEncoders()
+    InitTimer initTimes = null; //How long each part of init() took
+
     /* local OpMode members. */
     HardwareMap hwMap           =  null;
     private ElapsedTime period  = new ElapsedTime();
 
     /* Constructor */
-    Hardware_12772(){
+    Hardware_12772(String... driveNames){
+        this.driveNames = driveNames;
+        driveMotors = new DcMotor[driveNames.length];
+        drivePowers = new double[driveNames.length];
+        drivePositions = new int[driveNames.length];
+        driveVelocities = new double[driveNames.length];
+        state = new RobotState(driveNames.length);
+    }
+
+    /**Use another time source, e.g. a virtual clock in simulation. Restarts runtime.*/
+    void setClock(RobotClock clock) {
+        this.clock = clock;
+        runtime.setClock(clock);
     }
 
     //Main function called for initialization stage
-    abstract void init(HardwareMap ahwMap, boolean useEncoders);
+    abstract void init(HardwareMap ahwMap, boolean isAuto);
+
+    /**Gets every drive motor from hwMap by its name in driveNames.*/
+    void mapDriveMotors() {
+        for (int i = 0; i < driveMotors.length; i++)
+            driveMotors[i] = hwMap.get(DcMotor.class, driveNames[i]);
+    }
+
+    /**
+     * Zeros the encoders in software, one read each, instead of RESET_ENCODERS mode switches.
+     * Fresh zeros by default, autonomous starts from a known pose. TeleOP sets continueSavedZeros
+     * to keep autonomous' zeros for the other motors if it ran, so e.g. the arm's resting position
+     * doesn't move to wherever autonomous left it. The wheels always start fresh.
+     * The other motors get the encoder indices after the wheels.
+     */
+    void initEncoders(DcMotor[] others, String[] otherNames) {
+        DcMotor[] motors = new DcMotor[driveMotors.length + others.length];
+        String[] names = new String[motors.length];
+        System.arraycopy(driveMotors, 0, motors, 0, driveMotors.length);
+        System.arraycopy(others, 0, motors, driveMotors.length, others.length);
+        System.arraycopy(driveNames, 0, names, 0, driveNames.length);
+        System.arraycopy(otherNames, 0, names, driveNames.length, otherNames.length);
+        encoders = new EncoderBaselines(getClass().getSimpleName(), motors, names);
+        if (continueSavedZeros)
+            encoders.continueOrZero(driveMotors.length);
+        else
+            encoders.zero();
+        lastReadNanos = 0;
+    }
+
+    /**Zero power, juuuust in case, and the run mode, in one pass over the drive motors.*/
+    void initDriveMotors(DcMotor.RunMode mode) {
+        for (int i = 0; i < driveMotors.length; i++) {
+            drivePowers[i] = 0;
+            writeCache.setPower(driveMotors[i], 0);
+            writeCache.setMode(driveMotors[i], mode);
+        }
+    }
+
+    //Called once at the start of every cycle, before any logic. One read per encoder.
+    //Subclasses add their arm and claw after calling this.
+    void readState(){
+        long now = clock.nanoTime();
+        double seconds = lastReadNanos != 0 ? (now - lastReadNanos) / 1e9 : 0;
+        lastReadNanos = now;
+        state.timestampNanos = now;
+        state.cycleCount++;
+        for (int i = 0; i < driveMotors.length; i++) {
+            int position = encoders.position(i);
+            driveVelocities[i] = seconds > 0 ? (position - drivePositions[i]) / seconds : 0;
+            drivePositions[i] = position;
+            state.driveEncoders[i] = position;
+            //Commanded values, no need to ask the hub.
+            state.drivePowers[i] = drivePowers[i];
+        }
+        state.driveSpeed = driveSpeedStick;
+    }
 
     //Main function usually called repeatedly after 'Start'
     void update(){
-        // Send calculated power to DRIVE MOTORS
+        // Send calculated power to DRIVE MOTORS. Unchanged values never leave the phone.
         for (int i = 0; i < driveMotors.length; i++)
-            driveMotors[i].setPower(drivePowers[i]);
+            writeCache.setPower(driveMotors[i], drivePowers[i]);
     }
 
     //used in Autonomous to set speed but retain direction.
@@ -52,16 +140,21 @@ abstract class Hardware_12772 {
         }
     }
 
+    /**Sets one wheel's power from a -1 to 1 input, scaled to speed. What povDrive() is made of.*/
+    void scaleDrivePower(int wheel, double input, double speed) {
+        drivePowers[wheel] = Range.scale(input, -1.0, 1.0, -speed, speed);
+    }
+
     void setDriveSpeedWithButtons(boolean increase, boolean decrease){
         //Maybe we should do this with an array? Idk, I don't think it's necessary.
         if (increase) {
             if (driveSpeedStick == driveSpeedMin) driveSpeedStick = driveSpeedMed;
             else if (driveSpeedStick == driveSpeedMed) driveSpeedStick = driveSpeedMax;
-            else if (driveSpeedStick == driveSpeedMax) ;
+            else if (driveSpeedStick == driveSpeedMax) ;//TODO: add sound cue for this condition.
             else driveSpeedStick = driveSpeedMed;
         }
         if (decrease) {
-            if (driveSpeedStick == driveSpeedMin) ;
+            if (driveSpeedStick == driveSpeedMin) ;//TODO: add sound cue for this condition.
             else if (driveSpeedStick == driveSpeedMed) driveSpeedStick = driveSpeedMin;
             else if (driveSpeedStick == driveSpeedMax) driveSpeedStick = driveSpeedMed;
             else driveSpeedStick = driveSpeedMed;
@@ -3,6 +3,7 @@ package org.firstinspires.ftc.teamcode.competitioncode;
 /**
  * Hardware class for 4-Directional robot with wheels at 45 degree angles (and claw arm).
  * Robot will have drive wheel on each side, and can move in x and z directions as well as rotate.
+ * Drive state lives in Hardware_12772's arrays, indexed by LEFT_REAR, RIGHT_FRONT, LEFT_FRONT, RIGHT_REAR.
  * Currently Hardware class being used by robot.
  * TODO: Create option to limit the height mainArm applies holdingPower at.
  * TODO: Shared code between this class and other claw-robot hardware class.
@@ -10,21 +11,17 @@ package org.firstinspires.ftc.teamcode.competitioncode;
  */
 
 import com.qualcomm.robotcore.hardware.DcMotor;
-import com.qualcomm.robotcore.hardware.DcMotorSimple;
 import com.qualcomm.robotcore.hardware.HardwareMap;
 import com.qualcomm.robotcore.hardware.Servo;
-import com.qualcomm.robotcore.util.ElapsedTime;
 import com.qualcomm.robotcore.util.Range;
 
-class Hardware_OD_OmniDirection {
+class Hardware_OD_OmniDirection extends Hardware_12772 {
 
     // Declare OpMode members.
-    ElapsedTime runtime = new ElapsedTime();
-    DcMotor leftRearDrive = null;
-    DcMotor rightFrontDrive = null;
-    DcMotor leftFrontDrive = null;
-    DcMotor rightRearDrive = null;
-    DcMotor[] driveMotors = {leftRearDrive, rightFrontDrive, leftFrontDrive, rightRearDrive};
+    //Drive wheels, indices into driveMotors, drivePowers, drivePositions and driveVelocities.
+    static final int LEFT_REAR = 0, RIGHT_FRONT = 1, LEFT_FRONT = 2, RIGHT_REAR = 3;
+    //The arm's encoder index, after the wheels. See EncoderBaselines.
+    static final int ARM = 4;
     DcMotor mainArm = null;
 
     Servo leftTopClaw = null;
@@ -32,25 +29,14 @@ class Hardware_OD_OmniDirection {
     Servo leftBottomClaw = null;
     Servo rightBottomClaw = null;
 
-    //Drive wheel power variables.
-    double leftRearDrivePower;
-    double rightFrontDrivePower;
-    double leftFrontDrivePower;
-    double rightRearDrivePower;
-    double[] drivePowers = {leftRearDrivePower, rightFrontDrivePower, leftFrontDrivePower, rightRearDrivePower};
-
     // CLAW MAX AND MIN POS
     /**Zero is closed fully, one is open fully, 0.5 is extended 90 degrees.*/
     double clawPOSMin = 0.45;
     double clawPOSMax = 1.0;
     double clawsPOS = 0;
 
-    //  CLAW OFFSET. used to adjust to real values
-
-    double leftBottomClawOffset = 0.0; //Default ideal values, modified later
-    double rightBottomClawOffset = 1.0;
-    double leftTopClawOffset = 1.0;
-    double rightTopClawOffset = 0.0;
+    //  CLAW SERVOS AND OFFSETS. Offsets live in claw, set them after init.
+    ClawServos claw = null;
 
     // MAIN ARM POS AND POWER
     double mainArmPower;
@@ -58,6 +44,9 @@ class Hardware_OD_OmniDirection {
     int[] mainArmPositions = {10, 120, 260, 320};
     int mainArmPosition = 0;
     int mainArmPositionX = -1;  //Test variable, find ideal arm positions
+    int mainArmTargetPosition = 0;
+    //Requested run mode. Only sent to the hub from update(), and only when it actually changed.
+    DcMotor.RunMode mainArmMode = DcMotor.RunMode.RUN_WITHOUT_ENCODER;
     double mainArmHoldingPower = 0.18;
     double mainArmMaxUpPower = 0.8;
     double mainArmMaxDownPower = mainArmHoldingPower + 0.05;
@@ -65,146 +54,114 @@ class Hardware_OD_OmniDirection {
     //FIXME: added this line
     int mainArmMaxHoldingPos = 300;
 
-    // DRIVE SPEED
-    double driveSpeedMin = 0.25;
-    double driveSpeedMed = 0.5;
-    double driveSpeedMax = 1.0;
-    double driveSpeedStick = driveSpeedMed;
-
     //TODO: Kill me
     boolean isAutoWorkAround;
 
-    /* local OpMode members. */
-    HardwareMap hwMap           =  null;
-    private ElapsedTime period  = new ElapsedTime();
+    //Encoder ticks per second a drive wheel turns at full power with no load. NeveRest 40: 160 rpm, 1120 ticks/rev.
+    double driveTicksPerSecond = 160 * 1120 / 60.0;
 
     /* Constructor */
     Hardware_OD_OmniDirection(){
+        super("leftRearDrive", "rightFrontDrive", "leftFrontDrive", "rightRearDrive");
+    }
+
+    /**Use another time source, e.g. a virtual clock in simulation. Restarts runtime.*/
+    @Override
+    void setClock(RobotClock clock) {
+        super.setClock(clock);
+        if (claw != null)
+            claw.setClock(clock);
     }
 
     //Main function called for initialization stage
+    @Override
     void init(HardwareMap ahwMap, boolean isAuto) {
+        initTimes = new InitTimer(clock);
         // Save reference to Hardware map
         hwMap = ahwMap;
         //TODO: Stop this madness...
         isAutoWorkAround = false;
 
-        leftRearDrive = hwMap.get(DcMotor.class, "leftRearDrive");   //LEFT DRIVE WHEEL MOTOR
-        rightFrontDrive = hwMap.get(DcMotor.class, "rightFrontDrive");  //RIGHT DRIVE WHEEL MOTOR
-        leftFrontDrive = hwMap.get(DcMotor.class, "leftFrontDrive");
-        rightRearDrive = hwMap.get(DcMotor.class, "rightRearDrive");
+        mapDriveMotors(); //DRIVE WHEEL MOTORS, named in the constructor
         mainArm = hwMap.get(DcMotor.class, "mainArm");      //ARM MOTOR
 
         leftBottomClaw = hwMap.get(Servo.class, "leftBottomClaw");      //LEFT CLAW SERVO
         rightBottomClaw = hwMap.get(Servo.class, "rightBottomClaw");      //RIGHT CLAW SERVO
         leftTopClaw = hwMap.get(Servo.class, "leftTopClaw");      //UPPER LEFT CLAW SERVO
         rightTopClaw = hwMap.get(Servo.class, "rightTopClaw");      //UPPER RIGHT CLAW SERVO
+        claw = new ClawServos(leftBottomClaw, rightBottomClaw, leftTopClaw, rightTopClaw, writeCache, clock);
+        initTimes.mark("hardwareMap");
 
         // Since motors face opposite on each side, one drive motor needs to be reversed.
         // Reverse the motor that runs backwards when connected directly to the battery
-        leftRearDrive.setDirection(DcMotor.Direction.FORWARD);
-        rightFrontDrive.setDirection(DcMotor.Direction.REVERSE);
-        leftFrontDrive.setDirection(DcMotor.Direction.FORWARD);
-        rightRearDrive.setDirection(DcMotor.Direction.REVERSE);
+        driveMotors[LEFT_REAR].setDirection(DcMotor.Direction.FORWARD);
+        driveMotors[RIGHT_FRONT].setDirection(DcMotor.Direction.REVERSE);
+        driveMotors[LEFT_FRONT].setDirection(DcMotor.Direction.FORWARD);
+        driveMotors[RIGHT_REAR].setDirection(DcMotor.Direction.REVERSE);
         // This arm is backwards too, probably.
         mainArm.setDirection(DcMotor.Direction.FORWARD);
+        initTimes.mark("directions");
 
-        // Set all motors to zero power, juuuust in cas
-        for (DcMotor motor : driveMotors)
-            motor.setPower(0);
-        mainArm.setPower(0);
+        initEncoders(new DcMotor[]{mainArm}, new String[]{"mainArm"});
+        initTimes.mark("encoder baselines");
 
         /*
+        Zero power, juuuust in case, and the run mode, in one pass. Also tells the cache what the hub has.
         RELEASE THE SHAKIN'!! Running using encoders causes motors to shake a bit, so best to
         avoid when possible.
         */
-        if (isAuto) {
-            for (DcMotor motor : driveMotors) {
-                motor.setMode(DcMotor.RunMode.RESET_ENCODERS);
-                motor.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
-            }
-        }
-        else {
-            for (DcMotor motor : driveMotors) {
-                motor.setMode(DcMotor.RunMode.RUN_WITHOUT_ENCODER);
-            }
-        }
-        mainArm.setMode(DcMotor.RunMode.RESET_ENCODERS); //resting position set to zero
-        mainArm.setMode(DcMotor.RunMode.RUN_WITHOUT_ENCODER); //Default & shakeless. OP modes can change this if needed.
+        writeCache.invalidate();
+        initDriveMotors(isAuto ? DcMotor.RunMode.RUN_USING_ENCODER : DcMotor.RunMode.RUN_WITHOUT_ENCODER);
+        initTimes.mark("drive motors");
+        mainArmMode = DcMotor.RunMode.RUN_WITHOUT_ENCODER; //Default & shakeless. OP modes can change this if needed.
         mainArmPower = mainArmPowerMax;
-        mainArm.setTargetPosition(0);
+        mainArmTargetPosition = 0; //resting position
+        writeCache.setPower(mainArm, 0);
+        writeCache.setMode(mainArm, mainArmMode);
+        writeCache.setTargetPosition(mainArm, encoders.toHub(ARM, mainArmTargetPosition));
+        initTimes.mark("arm motor");
+    }
+
+    //Called once at the start of every cycle, before any logic. One read per encoder.
+    @Override
+    void readState(){
+        super.readState();
+        state.armPosition = encoders.position(ARM);
+        //Commanded values, no need to ask the hub.
+        state.armPower = isAutoWorkAround ? 0 : mainArmPower;
+        state.clawPosition = clawsPOS;
     }
 
     //Main function usually called repeatedly after 'Start'
+    @Override
     void update(){
-        // Send calculated power to DRIVE MOTORS
-        for (int i = 0; i < driveMotors.length; i++)
-            driveMotors[i].setPower(drivePowers[i]);
+        super.update(); //DRIVE MOTORS
         moveClaw(clawsPOS);
-        if (mainArmPositionX != -1)
-            mainArm.setTargetPosition(mainArmPositionX);
-        mainArm.setPower(mainArmPower);
-        if (isAutoWorkAround)
-            mainArm.setPower(0);
-    }
-
-    //used in Autonomous to set speed but retain direction.
-    void setDriveSpeed(double speed){
-        for (int i = 0; i < drivePowers.length; i++) {
-            if (drivePowers[i] != 0.0)//avoids divide by zero
-                drivePowers[i] *= speed / Math.abs(drivePowers[i]);//speed times sign of drivepower
-            else
-                drivePowers[i] = speed;//if zero, set to zero.
-        }
+        // MAIN ARM: target, mode and power go out together, mode only if it changed.
+        writeCache.setTargetPosition(mainArm, encoders.toHub(ARM, mainArmPositionX != -1 ? mainArmPositionX : mainArmTargetPosition));
+        writeCache.setMode(mainArm, mainArmMode);
+        writeCache.setPower(mainArm, isAutoWorkAround ? 0 : mainArmPower);
     }
 
     //set drivePower given single-joystick input
     void povDrive(double i, double j, double acw, double cw, double speed){
         /**i and j are the rotated axes. As a result, negating i would counter-intuitively create a
-         * motion perpendicular to the original, rather than the expected anti-parallel.*/
-        if (cw+acw != 0)
-        {
-            leftRearDrivePower = Range.scale(cw - acw, -1.0, 1.0, -speed, speed);
-            rightFrontDrivePower = -leftRearDrivePower;
-            leftFrontDrivePower = leftRearDrivePower;
-            rightRearDrivePower = -leftRearDrivePower;
-        }
-        else
-        {
-            leftRearDrivePower = Range.scale(j, -1.0, 1.0, speed, -speed);
-            rightFrontDrivePower = leftRearDrivePower;
-            leftFrontDrivePower = Range.scale(i, -1.0, 1.0, -speed, speed);
-            rightRearDrivePower = leftFrontDrivePower;
-        }
-    }
-
-    void setDriveSpeedWithButtons(boolean increase, boolean decrease){
-        //Maybe we should do this with an array? Idk, I don't think it's necessary.
-        if (increase) {
-            if (driveSpeedStick == driveSpeedMin) driveSpeedStick = driveSpeedMed;
-            else if (driveSpeedStick == driveSpeedMed) driveSpeedStick = driveSpeedMax;
-            else if (driveSpeedStick == driveSpeedMax) ;
-            else driveSpeedStick = driveSpeedMed;
-        }
-        if (decrease) {
-            if (driveSpeedStick == driveSpeedMin) ;
-            else if (driveSpeedStick == driveSpeedMed) driveSpeedStick = driveSpeedMin;
-            else if (driveSpeedStick == driveSpeedMax) driveSpeedStick = driveSpeedMed;
-            else driveSpeedStick = driveSpeedMed;
-        }
+         * motion perpendicular to the original, rather than the expected anti-parallel.
+         * Translation and rotation mix, so the robot can turn while it drives. See OmniKinematics.*/
+        OmniKinematics.mix(i, j, cw - acw, speed, drivePowers);
     }
     void raiseArmSlightly(boolean mode){
         if (mode) {
-            mainArm.setMode(DcMotor.RunMode.RUN_WITHOUT_ENCODER);
+            mainArmMode = DcMotor.RunMode.RUN_WITHOUT_ENCODER;
             mainArmPower = mainArmMaxUpPower;
         } else {
-            mainArm.setMode(DcMotor.RunMode.RUN_WITHOUT_ENCODER);
+            mainArmMode = DcMotor.RunMode.RUN_WITHOUT_ENCODER;
             mainArmPower = mainArmHoldingPower;
         }
     }
     void lowerArmSlightly(boolean mode){
         if (mode) {
-            mainArm.setMode(DcMotor.RunMode.RUN_WITHOUT_ENCODER);
+            mainArmMode = DcMotor.RunMode.RUN_WITHOUT_ENCODER;
             mainArmPower = -mainArmMaxDownPower;
 //            mainArmPower = -1.0;
         } else {
@@ -214,12 +171,12 @@ class Hardware_OD_OmniDirection {
     }
     void setArmPositionJoystick(double y, boolean toggleHolding, boolean movingToResting){  //TODO: Ask Sergio if we need the start button
         if (movingToResting) { //when moveToResting button is held, arm motor uses encoders to move self.
-            mainArm.setMode(DcMotor.RunMode.RUN_TO_POSITION);
+            mainArmTargetPosition = 0;
+            mainArmMode = DcMotor.RunMode.RUN_TO_POSITION;
             mainArmPower = -0.1;
-            mainArm.setTargetPosition(0);
         }
         else { //otherwise, joystick is used to control arm motor power.
-            mainArm.setMode(DcMotor.RunMode.RUN_WITHOUT_ENCODER);
+            mainArmMode = DcMotor.RunMode.RUN_WITHOUT_ENCODER;
             if (toggleHolding) //used debounced button to toggle if holding.
                 mainArmHolding = !mainArmHolding;
 
@@ -261,16 +218,14 @@ class Hardware_OD_OmniDirection {
         rightBottomClaw.setPosition(0.0);
         leftBottomClaw.setPosition(startPosition);
         rightBottomClaw.setPosition(startPosition);
-        leftBottomClawOffset =   leftBottomClaw.getPosition() - startPosition;
-        rightBottomClawOffset =  rightBottomClaw.getPosition() + startPosition;
+        claw.leftBottomOffset =   leftBottomClaw.getPosition() - startPosition;
+        claw.rightBottomOffset =  rightBottomClaw.getPosition() + startPosition;
+        writeCache.invalidate(); //servos were written around the cache above
+        claw.invalidate();
     }
 
-    //set positions of TopClaw servos
+    //set positions of all claw servos. Skips repeats and paces writes, see ClawServos.
     void moveClaw(double toPosition){
-        leftBottomClaw.setPosition(leftBottomClawOffset + toPosition);
-        rightBottomClaw.setPosition(rightBottomClawOffset - toPosition);
-
-        leftTopClaw.setPosition(leftTopClawOffset - toPosition);
-        rightTopClaw.setPosition(rightTopClawOffset + toPosition);
+        claw.moveTo(toPosition);
     }
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package org.firstinspires.ftc.teamcode.competitioncode;
 /**
  * Hardware class for the old Rear Wheel Drive and Claw Robot.
  * Used for common functions between OP modes, can probably be used between similar robots.
+ * Drive state lives in Hardware_12772's arrays, indexed by LEFT and RIGHT.
  * TODO: Create option to limit the height mainArm applies holdingPower at.
  *  This means holdingPower will be turned if the arm is above a specified height of 4 cubes,
  *  but resume when it drops to appropriate height.
@@ -11,15 +12,15 @@ package org.firstinspires.ftc.teamcode.competitioncode;
 import com.qualcomm.robotcore.hardware.DcMotor;
 import com.qualcomm.robotcore.hardware.HardwareMap;
 import com.qualcomm.robotcore.hardware.Servo;
-import com.qualcomm.robotcore.util.ElapsedTime;
 import com.qualcomm.robotcore.util.Range;
 
-class Hardware_RWD_RearWheelDrive {
+class Hardware_RWD_RearWheelDrive extends Hardware_12772 {
 
     // Declare OpMode members.
-    ElapsedTime runtime = new ElapsedTime();
-    DcMotor leftDrive = null;
-    DcMotor rightDrive = null;
+    //Drive wheels, indices into driveMotors, drivePowers, drivePositions and driveVelocities.
+    static final int LEFT = 0, RIGHT = 1;
+    //The arm's encoder index, after the wheels. See EncoderBaselines.
+    static final int ARM = 2;
     DcMotor mainArm = null;
 
     Servo leftTopClaw = null;
@@ -27,22 +28,15 @@ class Hardware_RWD_RearWheelDrive {
     Servo leftBottomClaw = null;
     Servo rightBottomClaw = null;
 
-    //Drive wheel power variables.
-    double leftDrivePower;
-    double rightDrivePower;
-
     // CLAW MAX AND MIN POS
     double clawPOSMin = 0.0;
     double clawPOSMax = 1.0;
     double clawsPOS = 0;
 
-    //  CLAW OFFSET. used to adjust to real values
-    double leftBottomClawOffset = 0.0; //Default ideal values, modified later
-    double rightBottomClawOffset = 1.0;
-    double leftTopClawOffset = 1.0;
-    double rightTopClawOffset = 0.0;
+    //  CLAW SERVOS AND OFFSETS. Offsets live in claw, set them after init.
     //do we need an offset for each claw or can we just use one offset for both?
     //no, the offset is to correct the individual imperfect servos.
+    ClawServos claw = null;
 
     // MAIN ARM POS AND POWER
     double mainArmPower;
@@ -50,30 +44,34 @@ class Hardware_RWD_RearWheelDrive {
     int[] mainArmPositions = {10, 120, 260, 320};
     int mainArmPosition = 0;
     int mainArmPositionX = -1;  //Test variable, find ideal arm positions
+    int mainArmTargetPosition = 0;
+    //Requested run mode. Only sent to the hub from update(), and only when it actually changed.
+    DcMotor.RunMode mainArmMode = DcMotor.RunMode.RUN_WITHOUT_ENCODER;
     double mainArmHoldingPower = 0.2;
     double mainArmMaxUpPower = 0.8;
     double mainArmMaxDownPower = mainArmHoldingPower + 0.05;
     boolean mainArmHolding = false;
 
-    // DRIVE SPEED
-    double driveSpeedMin = 0.25;
-    double driveSpeedMed = 0.5;
-    double driveSpeedMax = 1.0;
-    double driveSpeedStick = driveSpeedMed;
-
-    /* local OpMode members. */
-    HardwareMap hwMap           =  null;
-    private ElapsedTime period  = new ElapsedTime();
-
     /* Constructor */
     Hardware_RWD_RearWheelDrive(){
+        super("leftDrive", "rightDrive");
     }
     //Any purpose for this?
     //It's a default constructor. The code will probably work without it, but we may as well leave
     //it here just in case. Called when a zero-parameter Hardware_RWD_RearWheelDrive instance is created.
 
+    /**Use another time source, e.g. a virtual clock in simulation. Restarts runtime.*/
+    @Override
+    void setClock(RobotClock clock) {
+        super.setClock(clock);
+        if (claw != null)
+            claw.setClock(clock);
+    }
+
     //Main function called for initialization stage
+    @Override
     void init(HardwareMap ahwMap, boolean isAuto) {
+        initTimes = new InitTimer(clock);
         // Save reference to Hardware map
         hwMap = ahwMap;
 
@@ -82,84 +80,78 @@ class Hardware_RWD_RearWheelDrive {
            to 'get' must correspond to the names assigned during the robot configuration
            step (using the FTC Robot Controller app on the phone).
         */
-        leftDrive = hwMap.get(DcMotor.class, "leftDrive");   //LEFT DRIVE WHEEL MOTOR
-        rightDrive = hwMap.get(DcMotor.class, "rightDrive");  //RIGHT DRIVE WHEEL MOTOR
+        mapDriveMotors(); //LEFT AND RIGHT DRIVE WHEEL MOTORS, named in the constructor
         leftBottomClaw = hwMap.get(Servo.class, "leftClaw");      //LEFT CLAW SERVO
         rightBottomClaw = hwMap.get(Servo.class, "rightClaw");      //RIGHT CLAW SERVO
         mainArm = hwMap.get(DcMotor.class, "mainArm");      //ARM MOTOR
         leftTopClaw = hwMap.get(Servo.class, "leftTopClaw");      //UPPER LEFT CLAW SERVO
         rightTopClaw = hwMap.get(Servo.class, "rightTopClaw");      //UPPER RIGHT CLAW SERVO
+        claw = new ClawServos(leftBottomClaw, rightBottomClaw, leftTopClaw, rightTopClaw, writeCache, clock);
+        initTimes.mark("hardwareMap");
 
         // Since motors face opposite on each side, one drive motor needs to be reversed.
         // Reverse the motor that runs backwards when connected directly to the battery
-        leftDrive.setDirection(DcMotor.Direction.FORWARD);
-        rightDrive.setDirection(DcMotor.Direction.REVERSE);
+        driveMotors[LEFT].setDirection(DcMotor.Direction.FORWARD);
+        driveMotors[RIGHT].setDirection(DcMotor.Direction.REVERSE);
         // This arm is backwards too, probably.
         mainArm.setDirection(DcMotor.Direction.REVERSE);
+        initTimes.mark("directions");
 
-        // Set all motors to zero power, juuuust in case
-        leftDrive.setPower(0);
-        rightDrive.setPower(0);
-        mainArm.setPower(0);
+        initEncoders(new DcMotor[]{mainArm}, new String[]{"mainArm"});
+        initTimes.mark("encoder baselines");
 
         /*
+        Zero power, juuuust in case, and the run mode, in one pass. Also tells the cache what the hub has.
         RELEASE THE SHAKIN'!! Running using encoders causes motors to shake a bit, so best to
         avoid when possible.
         */
-        if (isAuto) {
-            leftDrive.setMode(DcMotor.RunMode.RESET_ENCODERS);
-            rightDrive.setMode(DcMotor.RunMode.RESET_ENCODERS);
-            leftDrive.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
-            rightDrive.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
-        }
-        else {
-            leftDrive.setMode(DcMotor.RunMode.RUN_WITHOUT_ENCODER);
-            rightDrive.setMode(DcMotor.RunMode.RUN_WITHOUT_ENCODER);
-        }
-        mainArm.setMode(DcMotor.RunMode.RESET_ENCODERS); //resting position set to zero
-        mainArm.setMode(DcMotor.RunMode.RUN_WITHOUT_ENCODER); //Default & shakeless. OP modes can change this if needed.
+        writeCache.invalidate();
+        initDriveMotors(isAuto ? DcMotor.RunMode.RUN_USING_ENCODER : DcMotor.RunMode.RUN_WITHOUT_ENCODER);
+        initTimes.mark("drive motors");
+        mainArmMode = DcMotor.RunMode.RUN_WITHOUT_ENCODER; //Default & shakeless. OP modes can change this if needed.
         mainArmPower = mainArmPowerMax;
-        mainArm.setTargetPosition(0);
+        mainArmTargetPosition = 0; //resting position
+        writeCache.setPower(mainArm, 0);
+        writeCache.setMode(mainArm, mainArmMode);
+        writeCache.setTargetPosition(mainArm, encoders.toHub(ARM, mainArmTargetPosition));
+        initTimes.mark("arm motor");
+    }
+
+    //Called once at the start of every cycle, before any logic. One read per encoder.
+    @Override
+    void readState(){
+        super.readState();
+        state.armPosition = encoders.position(ARM);
+        //Commanded values, no need to ask the hub.
+        state.armPower = mainArmPower;
+        state.clawPosition = clawsPOS;
     }
 
     //Main function usually called repeatedly after 'Start'
+    @Override
     void update(){
-        // Send calculated power to DRIVE MOTORS
-        leftDrive.setPower(leftDrivePower);
-        rightDrive.setPower(rightDrivePower);
+        super.update(); //DRIVE MOTORS
         // Send calculated position to SERVOS
         moveClaw(clawsPOS);
 
         //Mutilated code for mainArm below.
 
 //        mainArm.setTargetPosition(mainArmPositions[mainArmPosition]);
-        if (mainArmPositionX != -1){
 /*
+        if (mainArmPositionX != -1){
             if (Math.abs( mainArm.getCurrentPosition()-mainArm.getTargetPosition() ) <= 100) {
                 mainArm.setTargetPosition(mainArm.getCurrentPosition());
             }
             //Didn't fix problem, but might be useful to keep this code here.
-*/
-            mainArm.setTargetPosition(mainArmPositionX);
         }
+*/
+        // MAIN ARM: target, mode and power go out together, mode only if it changed.
+        writeCache.setTargetPosition(mainArm, encoders.toHub(ARM, mainArmPositionX != -1 ? mainArmPositionX : mainArmTargetPosition));
+        writeCache.setMode(mainArm, mainArmMode);
 //      if ((mainArmPosition - mainArm.getCurrentPosition() > 0) == (mainArmPower > 0)) { //XOR gate. Makes sure arm is moving in right direction.
 //          mainArmPower *= -1;
 //      }
-        mainArm.setPower(mainArmPower);
-    }
-
-    //used in Autonomous to set speed but retain direction.
-    void setDriveSpeed(double speed){
-        //Left
-        if (leftDrivePower != 0.0) //avoids divide by zero
-            leftDrivePower *= speed/Math.abs(leftDrivePower); //speed times sign of drivepower
-        else
-            leftDrivePower = speed; //if zero, set to zero.
-        //Right
-        if (rightDrivePower != 0.0)
-            rightDrivePower *= speed/Math.abs(rightDrivePower);
-        else
-            rightDrivePower = speed;
+        writeCache.setPower(mainArm, mainArmPower);
     }
 
     //set drivePower given single-joystick input
@@ -169,24 +161,8 @@ class Hardware_RWD_RearWheelDrive {
         //Don't think it'll make a difference because x and y already range from -1 to 1 anyway
         //leftDrivePower = Range.clip(y - x, -speed, speed);
         //rightDrivePower = Range.clip(y + x, -speed, speed);
-        leftDrivePower = Range.scale(y - x, -1.0, 1.0, -speed, speed);
-        rightDrivePower = Range.scale(y + x, -1.0, 1.0, -speed, speed);
-    }
-
-    void setDriveSpeedWithButtons(boolean increase, boolean decrease){
-        //Maybe we should do this with an array? Idk, I don't think it's necessary.
-        if (increase) {
-            if (driveSpeedStick == driveSpeedMin) driveSpeedStick = driveSpeedMed;
-            else if (driveSpeedStick == driveSpeedMed) driveSpeedStick = driveSpeedMax;
-            else if (driveSpeedStick == driveSpeedMax) ;//TODO: add sound cue for this condition.
-            else driveSpeedStick = driveSpeedMed;
-        }
-        if (decrease) {
-            if (driveSpeedStick == driveSpeedMin) ;//TODO: add sound cue for this condition.
-            else if (driveSpeedStick == driveSpeedMed) driveSpeedStick = driveSpeedMin;
-            else if (driveSpeedStick == driveSpeedMax) driveSpeedStick = driveSpeedMed;
-            else driveSpeedStick = driveSpeedMed;
-        }
+        scaleDrivePower(LEFT, y - x, speed);
+        scaleDrivePower(RIGHT, y + x, speed);
     }
 
     //legacy function to convert 3-button input to array index
@@ -207,12 +183,12 @@ class Hardware_RWD_RearWheelDrive {
 
     void setArmPositionJoystick(double y, boolean toggleHolding, boolean movingToResting){  //TODO: Ask Sergio if we need the start button
         if (movingToResting) { //when moveToResting button is held, arm motor uses encoders to move self.
-            mainArm.setMode(DcMotor.RunMode.RUN_TO_POSITION);
+            mainArmTargetPosition = 0;
+            mainArmMode = DcMotor.RunMode.RUN_TO_POSITION;
             mainArmPower = -0.1;
-            mainArm.setTargetPosition(0);
         }
         else { //otherwise, joystick is used to control arm motor power.
-            mainArm.setMode(DcMotor.RunMode.RUN_WITHOUT_ENCODER);
+            mainArmMode = DcMotor.RunMode.RUN_WITHOUT_ENCODER;
             if (toggleHolding) //used debounced button to toggle if holding.
                 mainArmHolding = !mainArmHolding;
 
@@ -253,16 +229,14 @@ class Hardware_RWD_RearWheelDrive {
         rightBottomClaw.setPosition(0.0);
         leftBottomClaw.setPosition(startPosition);
         rightBottomClaw.setPosition(startPosition);
-        leftBottomClawOffset =   leftBottomClaw.getPosition() - startPosition;
-        rightBottomClawOffset =  rightBottomClaw.getPosition() + startPosition;
+        claw.leftBottomOffset =   leftBottomClaw.getPosition() - startPosition;
+        claw.rightBottomOffset =  rightBottomClaw.getPosition() + startPosition;
+        writeCache.invalidate(); //servos were written around the cache above
+        claw.invalidate();
     }
 
-    //set positions of TopClaw servos
+    //set positions of all claw servos. Skips repeats and paces writes, see ClawServos.
     void moveClaw(double toPosition){
-        leftBottomClaw.setPosition(leftBottomClawOffset + toPosition);
-        rightBottomClaw.setPosition(rightBottomClawOffset - toPosition);
-
-        leftTopClaw.setPosition(leftTopClawOffset - toPosition);
-        rightTopClaw.setPosition(rightTopClawOffset + toPosition);
+        claw.moveTo(toPosition);
     }
 }
\ No newline at end of file
@@ -0,0 +1,63 @@
+package org.firstinspires.ftc.teamcode.competitioncode;
+
+/**
+ * Times the parts of a hardware init(). Call mark("label") after each part; every mark records the
+ * time since the previous one. Init runs once, so this keeps it simple and allocates freely.
+ */
+
+import com.qualcomm.robotcore.util.RobotLog;
+
+import org.firstinspires.ftc.robotcore.external.Telemetry;
+
+import java.util.ArrayList;
+
+class InitTimer {
+
+    final ArrayList<String> labels = new ArrayList<>();
+    final ArrayList<Long> nanos = new ArrayList<>();
+    private final RobotClock clock;
+    private final long startNanos;
+    private long lastNanos;
+
+    /* Constructor */
+    InitTimer(RobotClock clock){
+        this.clock = clock;
+        startNanos = lastNanos = clock.nanoTime();
+    }
+
+    void mark(String label) {
+        long now = clock.nanoTime();
+        labels.add(label);
+        nanos.add(now - lastNanos);
+        lastNanos = now;
+    }
+
+    double totalMs() {
+        return (lastNanos - startNanos) / 1e6;
+    }
+
+    /**Index of the part that took longest, -1 if nothing was marked.*/
+    int slowest() {
+        int slowest = -1;
+        for (int i = 0; i < nanos.size(); i++)
+            if (slowest == -1 || nanos.get(i) > nanos.get(slowest))
+                slowest = i;
+        return slowest;
+    }
+
+    /**One line with the total and the slowest part.*/
+    void addTelemetry(Telemetry telemetry) {
+        int slowest = slowest();
+        if (slowest == -1)
+            return;
+        telemetry.addData("Hardware init", "%.0f ms (slowest: %s %.0f ms)",
+                totalMs(), labels.get(slowest), nanos.get(slowest) / 1e6);
+    }
+
+    /**Every part and the total, to the robot log.*/
+    void log(String tag) {
+        for (int i = 0; i < labels.size(); i++)
+            RobotLog.ii(tag, "init %-18s %6.1f ms", labels.get(i), nanos.get(i) / 1e6);
+        RobotLog.ii(tag, "init %-18s %6.1f ms", "total", totalMs());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,134 @@
+package org.firstinspires.ftc.teamcode.competitioncode;
+
+/**
+ * Lightweight per-stage timer for OP mode loops. Stages are named once up front, then every loop:
+ *     profiler.startCycle();
+ *     ...stage 0 work...;  profiler.mark(0);
+ *     ...stage 1 work...;  profiler.mark(1);
+ * Each mark records the time since the previous mark into that stage's histogram.
+ * Histograms are fixed buckets allocated in the constructor, so recording never allocates.
+ * Percentiles are only as fine as the bucket width (BUCKET_MICROS); max is exact.
+ */
+
+import com.qualcomm.robotcore.util.RobotLog;
+
+import org.firstinspires.ftc.robotcore.external.Telemetry;
+
+import java.util.Arrays;
+
+class LoopProfiler {
+
+    static final int BUCKET_MICROS = 100;
+    static final int BUCKETS = 200; //0-20ms, anything slower lands in the last bucket
+
+    final String[] stageNames;
+    final int buckets;
+    private final int[][] histograms;
+    private final long[] counts;
+    private final long[] maxNanos;
+    private long lastMark;
+
+    /* Constructor */
+    LoopProfiler(String... stageNames){
+        this(BUCKETS, stageNames);
+    }
+
+    /**For longer times than a loop stage, e.g. whole loop periods. Covers buckets * BUCKET_MICROS.*/
+    LoopProfiler(int buckets, String... stageNames){
+        this.stageNames = stageNames;
+        this.buckets = buckets;
+        histograms = new int[stageNames.length][buckets];
+        counts = new long[stageNames.length];
+        maxNanos = new long[stageNames.length];
+    }
+
+    void startCycle() {
+        lastMark = System.nanoTime();
+    }
+
+    /**Ends the given stage: records the time since startCycle() or the previous mark.*/
+    void mark(int stage) {
+        long now = System.nanoTime();
+        record(stage, now - lastMark);
+        lastMark = now;
+    }
+
+    void record(int stage, long nanos) {
+        int bucket = (int) (nanos / (BUCKET_MICROS * 1000L));
+        if (bucket >= buckets)
+            bucket = buckets - 1;
+        else if (bucket < 0)
+            bucket = 0;
+        histograms[stage][bucket]++;
+        counts[stage]++;
+        if (nanos > maxNanos[stage])
+            maxNanos[stage] = nanos;
+    }
+
+    /**Upper edge of the bucket holding the given fraction (0.5 = p50) of samples, in milliseconds.*/
+    double percentileMs(int stage, double fraction) {
+        if (counts[stage] == 0)
+            return 0.0;
+        long needed = (long) Math.ceil(fraction * counts[stage]);
+        long seen = 0;
+        int[] histogram = histograms[stage];
+        for (int i = 0; i < buckets; i++) {
+            seen += histogram[i];
+            if (seen >= needed)
+                return Math.min((i + 1) * BUCKET_MICROS / 1000.0, maxMs(stage));
+        }
+        return maxMs(stage);
+    }
+
+    double maxMs(int stage) {
+        return maxNanos[stage] / 1e6;
+    }
+
+    long count(int stage) {
+        return counts[stage];
+    }
+
+    /**Adds another profiler's samples to this one, e.g. to combine loops that ran on other threads.
+     * Both need the same stages and bucket count.*/
+    void add(LoopProfiler other) {
+        for (int stage = 0; stage < stageNames.length; stage++) {
+            for (int i = 0; i < buckets; i++)
+                histograms[stage][i] += other.histograms[stage][i];
+            counts[stage] += other.counts[stage];
+            maxNanos[stage] = Math.max(maxNanos[stage], other.maxNanos[stage]);
+        }
+    }
+
+    void reset() {
+        for (int stage = 0; stage < stageNames.length; stage++) {
+            Arrays.fill(histograms[stage], 0);
+            counts[stage] = 0;
+            maxNanos[stage] = 0;
+        }
+    }
+
+    /**"p50 / p99 / max ms" for one stage, for TelemetryPublisher lines.*/
+    StringBuilder appendStage(StringBuilder builder, int stage) {
+        TelemetryPublisher.appendFixed(builder, percentileMs(stage, 0.50), 1).append(" / ");
+        TelemetryPublisher.appendFixed(builder, percentileMs(stage, 0.99), 1).append(" / ");
+        return TelemetryPublisher.appendFixed(builder, maxMs(stage), 1).append(" ms");
+    }
+
+    /**One line per stage: p50 / p99 / max in milliseconds.*/
+    void addTelemetry(Telemetry telemetry) {
+        for (int stage = 0; stage < stageNames.length; stage++)
+            telemetry.addData(stageNames[stage], "%.1f / %.1f / %.1f ms",
+                    percentileMs(stage, 0.50), percentileMs(stage, 0.99), maxMs(stage));
+    }
+
+    /**Call once the OP mode loop ends. Shows the table and writes it to the robot log.*/
+    void report(Telemetry telemetry, String tag) {
+        telemetry.clearAll(); //drops any lines a TelemetryPublisher left up
+        telemetry.addData("Profile", "p50 / p99 / max");
+        addTelemetry(telemetry);
+        telemetry.update();
+        for (int stage = 0; stage < stageNames.length; stage++)
+            RobotLog.ii(tag, "%-12s n=%d p50=%.2fms p99=%.2fms max=%.2fms", stageNames[stage],
+                    counts[stage], percentileMs(stage, 0.50), percentileMs(stage, 0.99), maxMs(stage));
+    }
+}
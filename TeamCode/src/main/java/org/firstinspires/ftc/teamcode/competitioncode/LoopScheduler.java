@@ -0,0 +1,104 @@
+package org.firstinspires.ftc.teamcode.competitioncode;
+
+/**
+ * Runs an OP mode's input -> compute -> update() loop at a fixed rate instead of "as fast as the
+ * hub lets us". Call waitForNextCycle() at the top of every loop.
+ * Deadlines are absolute (start + n * period), so a slow cycle does not push every later cycle back.
+ * If a cycle runs past its deadline it is counted as an overrun and the next cycle starts right away;
+ * if we fall more than a whole period behind, the schedule is restarted from now instead of
+ * running a burst of back-to-back cycles to catch up.
+ * Measured period and jitter are smoothed, and can be shown on telemetry to tune targetHz.
+ */
+
+class LoopScheduler {
+
+    long targetPeriodNanos;
+    RobotClock clock = RealClock.INSTANCE;
+
+    long cycles = 0;
+    long overruns = 0;
+    /**Smoothed time between cycle starts.*/
+    double measuredPeriodMs = 0;
+    /**Smoothed distance between the measured and the target period.*/
+    double jitterMs = 0;
+    double maxJitterMs = 0;
+
+    //Spin instead of sleeping for the last bit, Thread.sleep is only good to about a millisecond.
+    private static final long SPIN_NANOS = 1000000;
+    private static final double SMOOTHING = 0.05; //~20 cycles
+
+    private long nextDeadline;
+    private long lastCycleStart; //Only meaningful once cycles > 0, a clock may well start at 0
+
+    /* Constructor */
+    LoopScheduler(double targetHz){
+        setTargetHz(targetHz);
+    }
+
+    void setTargetHz(double targetHz) {
+        targetPeriodNanos = (long) (1e9 / targetHz);
+    }
+
+    double getTargetHz() {
+        return 1e9 / targetPeriodNanos;
+    }
+
+    /**Call right after waitForStart(). The first cycle starts immediately.*/
+    void start() {
+        nextDeadline = nanoTime();
+        cycles = 0;
+        overruns = 0;
+        measuredPeriodMs = 0;
+        jitterMs = 0;
+        maxJitterMs = 0;
+    }
+
+    /**Blocks until the next cycle is due. Returns immediately if we are already late.*/
+    void waitForNextCycle() {
+        long now = nanoTime();
+        long remaining = nextDeadline - now;
+        if (remaining > 0) {
+            sleepUntil(nextDeadline);
+        } else if (cycles > 0) {
+            overruns++;
+            if (-remaining > targetPeriodNanos) //more than a whole cycle behind, start over from now
+                nextDeadline = now;
+        }
+
+        long cycleStart = nanoTime();
+        if (cycles > 0) {
+            double periodMs = (cycleStart - lastCycleStart) / 1e6;
+            double errorMs = Math.abs(periodMs - targetPeriodNanos / 1e6);
+            measuredPeriodMs += (periodMs - measuredPeriodMs) * SMOOTHING;
+            jitterMs += (errorMs - jitterMs) * SMOOTHING;
+            if (errorMs > maxJitterMs)
+                maxJitterMs = errorMs;
+        }
+        lastCycleStart = cycleStart;
+        nextDeadline += targetPeriodNanos;
+        cycles++;
+    }
+
+    double overrunPercent() {
+        return cycles == 0 ? 0.0 : 100.0 * overruns / cycles;
+    }
+
+    long nanoTime() {
+        return clock.nanoTime();
+    }
+
+    private void sleepUntil(long deadline) {
+        long remaining = deadline - nanoTime();
+        if (clock != RealClock.INSTANCE) {
+            clock.sleepNanos(remaining); //Other clocks sleep exactly, and a virtual one never moves while we spin.
+            return;
+        }
+        if (remaining > SPIN_NANOS) {
+            clock.sleepNanos(remaining - SPIN_NANOS);
+            if (Thread.currentThread().isInterrupted())
+                return; //OP mode is stopping, let opModeIsActive() see it
+        }
+        while (nanoTime() - deadline < 0)
+            Thread.yield();
+    }
+}
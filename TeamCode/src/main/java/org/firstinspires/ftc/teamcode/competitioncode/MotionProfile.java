@@ -0,0 +1,149 @@
+package org.firstinspires.ftc.teamcode.competitioncode;
+
+/**
+ * Position and velocity setpoints for moving a distance from rest to rest, limited by a max
+ * velocity, acceleration and jerk. With maxJerk at 0 (no limit) it is a trapezoid: acceleration
+ * jumps straight to maxAcceleration. With a jerk limit it is an S-curve: acceleration ramps up and
+ * down too, which is gentler on the wheels' grip right when they start and stop.
+ * Short moves that can't reach maxVelocity (or maxAcceleration) get a lower peak, so every
+ * distance ends exactly at rest.
+ * Any units work as long as they match, e.g. ticks, ticks/s, ticks/s^2, ticks/s^3.
+ * plan() only does arithmetic and sample() fills fields, so a profile can be reused every segment
+ * without allocating.
+ */
+
+class MotionProfile {
+
+    double maxVelocity;
+    double maxAcceleration;
+    double maxJerk; //0 for a trapezoid
+
+    //Setpoint at the last sample() time
+    double position;
+    double velocity;
+    double acceleration;
+
+    //Plan. The acceleration phase is jerk up (jerkTime), constant (constantAccelTime), jerk down
+    //(jerkTime); then cruise; then the acceleration phase mirrored.
+    private double distance;
+    private double peakVelocity;
+    private double peakAcceleration;
+    private double jerk;
+    private double jerkTime;
+    private double constantAccelTime;
+    private double accelTime;
+    private double accelDistance;
+    private double cruiseTime;
+
+    /* Constructor */
+    MotionProfile(double maxVelocity, double maxAcceleration, double maxJerk){
+        this.maxVelocity = maxVelocity;
+        this.maxAcceleration = maxAcceleration;
+        this.maxJerk = maxJerk;
+    }
+
+    /**Plans a move of distance (0 or more) with the current limits, then samples the start.*/
+    void plan(double distance) {
+        this.distance = distance;
+        peakVelocity = maxVelocity;
+        if (accelDistance(peakVelocity) * 2 > distance)
+            peakVelocity = peakVelocityFor(distance);
+        accelDistance = accelDistance(peakVelocity);
+        cruiseTime = peakVelocity > 0 ? Math.max(0, (distance - 2 * accelDistance) / peakVelocity) : 0; //max: rounding
+        sample(0);
+    }
+
+    /**Time from start to rest, seconds.*/
+    double duration() {
+        return 2 * accelTime + cruiseTime;
+    }
+
+    double peakVelocity() {
+        return peakVelocity;
+    }
+
+    /**Time to get from rest to the peak, and from the peak back to rest.*/
+    double rampTime() {
+        return accelTime;
+    }
+
+    /**Sets position, velocity and acceleration for t seconds after the start. Holds the end after duration().*/
+    void sample(double t) {
+        double decelStart = accelTime + cruiseTime;
+        if (t <= 0) {
+            position = velocity = acceleration = 0;
+        } else if (t < accelTime) {
+            sampleAccelPhase(t);
+        } else if (t < decelStart) {
+            position = accelDistance + peakVelocity * (t - accelTime);
+            velocity = peakVelocity;
+            acceleration = 0;
+        } else if (t < duration()) {
+            sampleAccelPhase(duration() - t); //the acceleration phase, backwards
+            position = distance - position;
+            acceleration = -acceleration;
+        } else {
+            position = distance;
+            velocity = acceleration = 0;
+        }
+    }
+
+    /**Phase times for accelerating from rest to peak.*/
+    private void setAccelPhase(double peak) {
+        peakAcceleration = maxAcceleration;
+        if (maxJerk > 0) {
+            //Peak acceleration is only reached if there's time for the jerk ramps, otherwise lower it.
+            if (peak < maxAcceleration * maxAcceleration / maxJerk)
+                peakAcceleration = Math.sqrt(peak * maxJerk);
+            jerk = maxJerk;
+            jerkTime = peakAcceleration / maxJerk;
+        } else {
+            jerk = 0;
+            jerkTime = 0;
+        }
+        constantAccelTime = peakAcceleration > 0 ? Math.max(0, peak / peakAcceleration - jerkTime) : 0;
+        accelTime = 2 * jerkTime + constantAccelTime;
+    }
+
+    /**Distance covered accelerating from rest to peak. Symmetric, so it averages half the peak velocity.
+     * Sets up the acceleration phase for peak on the way.*/
+    private double accelDistance(double peak) {
+        setAccelPhase(peak);
+        return peak * accelTime / 2;
+    }
+
+    /**The peak velocity whose acceleration and deceleration together cover exactly distance.*/
+    private double peakVelocityFor(double distance) {
+        if (maxJerk > 0) {
+            //Jerk ramps only, no constant acceleration: distance = 2 v sqrt(v / jerk)
+            double peak = Math.pow(distance * Math.sqrt(maxJerk) / 2, 2.0 / 3.0);
+            if (peak <= maxAcceleration * maxAcceleration / maxJerk)
+                return peak;
+            //With constant acceleration: distance = v^2 / a + v a / jerk
+            double rampTime = maxAcceleration / maxJerk;
+            return maxAcceleration / 2 * (-rampTime + Math.sqrt(rampTime * rampTime + 4 * distance / maxAcceleration));
+        }
+        return Math.sqrt(distance * maxAcceleration); //trapezoid: distance = v^2 / a
+    }
+
+    /**Accelerating from rest: setpoint at t, 0 to accelTime.*/
+    private void sampleAccelPhase(double t) {
+        if (t < jerkTime) {
+            acceleration = jerk * t;
+            velocity = jerk * t * t / 2;
+            position = jerk * t * t * t / 6;
+        } else if (t < jerkTime + constantAccelTime) {
+            double rampVelocity = jerk * jerkTime * jerkTime / 2;
+            double rampPosition = jerk * jerkTime * jerkTime * jerkTime / 6;
+            double s = t - jerkTime;
+            acceleration = peakAcceleration;
+            velocity = rampVelocity + peakAcceleration * s;
+            position = rampPosition + rampVelocity * s + peakAcceleration * s * s / 2;
+        } else {
+            double s = accelTime - t; //time left until peak velocity
+            acceleration = jerk * s;
+            velocity = peakVelocity - jerk * s * s / 2;
+            position = accelDistance - (peakVelocity * s - jerk * s * s * s / 6);
+        }
+    }
+}
\ No newline at end of file
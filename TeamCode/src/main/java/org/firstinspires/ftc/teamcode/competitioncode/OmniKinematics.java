@@ -0,0 +1,70 @@
+package org.firstinspires.ftc.teamcode.competitioncode;
+
+/**
+ * Kinematics of the Omni-Direction robot's X-drive: four omni wheels at 45 degrees, indexed like
+ * Hardware_OD_OmniDirection (LEFT_REAR, RIGHT_FRONT, LEFT_FRONT, RIGHT_REAR).
+ * i and j are the rotated axes from General12772.rotateCoords(). Each axis is driven by one diagonal
+ * pair of wheels (i by LEFT_FRONT and RIGHT_REAR, j by LEFT_REAR and RIGHT_FRONT), and rotation r
+ * adds to one wheel of each pair and subtracts from the other:
+ *     LEFT_REAR = -j + r    RIGHT_FRONT = -j - r
+ *     LEFT_FRONT = i + r    RIGHT_REAR  =  i - r
+ * so the robot can translate and turn at the same time. The inverse turns any wheel values (powers,
+ * encoder ticks, ticks per second) back into i, j and r in the same units, e.g. for odometry.
+ * Everything writes into arrays the caller owns, nothing allocates.
+ */
+
+class OmniKinematics {
+
+    static final int I = 0, J = 1, ROTATION = 2;
+
+    /**
+     * Wheel powers for translation (i, j) plus rotation r, all -1 to 1, scaled to speed.
+     * If a wheel would need more than full power, all four are scaled down together, so the robot
+     * keeps its direction and turn ratio instead of clipping one wheel and curving off.
+     */
+    static void mix(double i, double j, double r, double speed, double[] powers) {
+        powers[Hardware_OD_OmniDirection.LEFT_REAR] = -j + r;
+        powers[Hardware_OD_OmniDirection.RIGHT_FRONT] = -j - r;
+        powers[Hardware_OD_OmniDirection.LEFT_FRONT] = i + r;
+        powers[Hardware_OD_OmniDirection.RIGHT_REAR] = i - r;
+        desaturate(powers);
+        for (int wheel = 0; wheel < 4; wheel++)
+            powers[wheel] *= speed;
+    }
+
+    /**Scales all powers down by the same factor so none is over 1. Leaves them alone if none is.*/
+    static void desaturate(double[] powers) {
+        double max = 1;
+        for (int wheel = 0; wheel < 4; wheel++)
+            max = Math.max(max, Math.abs(powers[wheel]));
+        if (max > 1)
+            for (int wheel = 0; wheel < 4; wheel++)
+                powers[wheel] /= max;
+    }
+
+    /**
+     * The inverse of mix(): chassis i, j and rotation from four wheel values, into out[I], out[J],
+     * out[ROTATION]. Each is the average of the wheels that carry it, so a slipping wheel only
+     * counts for its share. Gives back mix()'s inputs exactly when nothing was desaturated.
+     */
+    static void chassisVelocity(double[] wheels, double[] out) {
+        double leftRear = wheels[Hardware_OD_OmniDirection.LEFT_REAR];
+        double rightFront = wheels[Hardware_OD_OmniDirection.RIGHT_FRONT];
+        double leftFront = wheels[Hardware_OD_OmniDirection.LEFT_FRONT];
+        double rightRear = wheels[Hardware_OD_OmniDirection.RIGHT_REAR];
+        out[I] = (leftFront + rightRear) / 2;
+        out[J] = -(leftRear + rightFront) / 2;
+        out[ROTATION] = (leftRear - rightFront + leftFront - rightRear) / 4;
+    }
+
+    /**Same as above for encoder positions or deltas.*/
+    static void chassisVelocity(int[] wheels, double[] out) {
+        int leftRear = wheels[Hardware_OD_OmniDirection.LEFT_REAR];
+        int rightFront = wheels[Hardware_OD_OmniDirection.RIGHT_FRONT];
+        int leftFront = wheels[Hardware_OD_OmniDirection.LEFT_FRONT];
+        int rightRear = wheels[Hardware_OD_OmniDirection.RIGHT_REAR];
+        out[I] = (leftFront + rightRear) / 2.0;
+        out[J] = -(leftRear + rightFront) / 2.0;
+        out[ROTATION] = (leftRear - rightFront + leftFront - rightRear) / 4.0;
+    }
+}
\ No newline at end of file
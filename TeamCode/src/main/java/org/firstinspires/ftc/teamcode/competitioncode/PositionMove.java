@@ -0,0 +1,131 @@
+package org.firstinspires.ftc.teamcode.competitioncode;
+
+/**
+ * Drives every drive wheel to an encoder target, e.g. the Rear Wheel Drive robot straight ahead.
+ * Every loop cycle it reads all the wheels' encoders, so no wheel runs past its target for long
+ * before we notice, and each wheel's power ramps down in proportion to how far it still has to go
+ * (the same slope at every speed, so fast moves start slowing down earlier), so there isn't much
+ * to notice. A wheel inside toleranceTicks gets zero power, one that ended up past its target
+ * is driven back at minPower. moveTo() only returns once every wheel is inside and has stayed
+ * within settleWindowTicks for settleCycles cycles in a row, after timeoutSeconds, or as soon as
+ * the OP mode is stopping, always with the wheels stopped.
+ * (Not a velocity threshold: one tick per cycle is already 50 ticks/s at 50 Hz, so anything lower
+ * means "didn't move at all this cycle", and a motor dithering by a tick would never settle.)
+ * Runs with the motors in RUN_USING_ENCODER, the hub keeps the speed and we pick when to stop.
+ * What actually happened is kept for telemetry and the log: how far past the target each wheel went,
+ * and how long each needed to stand still after its power was cut.
+ */
+
+class PositionMove {
+
+    double slowdownTicks = 1000; //Power 1 this far from the target, less in proportion closer. Never more than speed.
+    double minPower = 0.08; //Less than this and the wheels hum instead of turning
+    int toleranceTicks = 10;
+    int settleWindowTicks = 2; //Moving less than this...
+    int settleCycles = 5; //...for this many cycles in a row counts as stopped
+    double timeoutSeconds = 15; //4 feet at driveSpeedMin takes about 10
+    RobotClock clock = RealClock.INSTANCE;
+
+    //Last moveTo(), per wheel like Hardware_12772's drive arrays
+    final int[] overshootTicks;     //Furthest past the target, in the direction of travel
+    final double[] stopLatencyMs;   //Power cut to standing still. NaN if it never settled.
+    boolean stopped;                //OP mode stopped it
+    int maxOvershootTicks;
+    double maxStopLatencyMs;
+    double durationMs;
+    long cycles;
+    boolean timedOut;
+
+    private final Hardware_12772 r;
+    private final LoopScheduler loop;
+    private final int[] directions;
+    private final long[] cutNanos; //When each wheel's power was cut, 0 while it still drives
+    private final int[] stillPositions; //Where each wheel's current still stretch started
+    private final long[] stillNanos;
+    private final int[] stillCycles;
+
+    /* Constructor */
+    PositionMove(Hardware_12772 r, LoopScheduler loop){
+        this.r = r;
+        this.loop = loop;
+        overshootTicks = new int[r.driveMotors.length];
+        stopLatencyMs = new double[r.driveMotors.length];
+        directions = new int[r.driveMotors.length];
+        cutNanos = new long[r.driveMotors.length];
+        stillPositions = new int[r.driveMotors.length];
+        stillNanos = new long[r.driveMotors.length];
+        stillCycles = new int[r.driveMotors.length];
+    }
+
+    /**Drives every wheel to target ticks from zero at up to speed, then stops them. Returns when they have settled.*/
+    void moveTo(int target, double speed) {
+        timedOut = false;
+        stopped = false;
+        cycles = 0;
+        maxOvershootTicks = 0;
+        maxStopLatencyMs = 0;
+        r.readState();
+        for (int wheel = 0; wheel < directions.length; wheel++) {
+            directions[wheel] = Integer.signum(target - r.drivePositions[wheel]);
+            overshootTicks[wheel] = 0;
+            stopLatencyMs[wheel] = Double.NaN;
+            cutNanos[wheel] = 0;
+            stillCycles[wheel] = 0;
+        }
+        long start = clock.nanoTime();
+        loop.start();
+        while (true) {
+            loop.waitForNextCycle();
+            if (Thread.currentThread().isInterrupted()) {
+                stopped = true; //Stop pressed, sleeps don't wait anymore. See ProcedureExecutor.stopRequested().
+                break;
+            }
+            long cycleStart = clock.nanoTime();
+            r.readState();
+            cycles++;
+            boolean allSettled = true;
+            for (int wheel = 0; wheel < directions.length; wheel++) {
+                int position = r.drivePositions[wheel];
+                int remaining = target - position;
+                overshootTicks[wheel] = Math.max(overshootTicks[wheel], -remaining * directions[wheel]);
+                boolean inside = Math.abs(remaining) <= toleranceTicks;
+                if (inside) {
+                    r.drivePowers[wheel] = 0;
+                    if (cutNanos[wheel] == 0)
+                        cutNanos[wheel] = cycleStart;
+                } else {
+                    double power = Math.min(speed, Math.max(minPower, Math.abs(remaining) / slowdownTicks));
+                    r.drivePowers[wheel] = remaining > 0 ? power : -power;
+                    cutNanos[wheel] = 0; //Pushed back out, start over
+                    stopLatencyMs[wheel] = Double.NaN;
+                }
+                if (inside && stillCycles[wheel] > 0 && Math.abs(position - stillPositions[wheel]) <= settleWindowTicks) {
+                    stillCycles[wheel]++;
+                } else {
+                    stillPositions[wheel] = position;
+                    stillNanos[wheel] = cycleStart;
+                    stillCycles[wheel] = inside ? 1 : 0;
+                }
+                boolean settled = stillCycles[wheel] >= settleCycles;
+                if (settled && Double.isNaN(stopLatencyMs[wheel]))
+                    stopLatencyMs[wheel] = Math.max(0, stillNanos[wheel] - cutNanos[wheel]) / 1e6;
+                allSettled &= settled;
+            }
+            r.update();
+            if (allSettled)
+                break;
+            if (cycleStart - start >= timeoutSeconds * 1e9) {
+                timedOut = true;
+                break;
+            }
+        }
+        for (int wheel = 0; wheel < directions.length; wheel++) {
+            r.drivePowers[wheel] = 0;
+            maxOvershootTicks = Math.max(maxOvershootTicks, overshootTicks[wheel]);
+            if (!Double.isNaN(stopLatencyMs[wheel]))
+                maxStopLatencyMs = Math.max(maxStopLatencyMs, stopLatencyMs[wheel]);
+        }
+        r.update();
+        durationMs = (clock.nanoTime() - start) / 1e6;
+    }
+}
\ No newline at end of file
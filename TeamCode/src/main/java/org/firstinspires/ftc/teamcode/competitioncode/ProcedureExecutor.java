@@ -0,0 +1,296 @@
+package org.firstinspires.ftc.teamcode.competitioncode;
+
+/**
+ * Runs autonomous procedure rows [i, j, cw, speed, time, stop] (see AutoODVuforia.fieldTranslate()
+ * and fieldRotate()), compiled into a ProcedureTable, on the drive encoders instead of the clock.
+ * A row's time now means distance: how far an ideal robot gets in that time at that speed, with
+ * the drive motors at free speed, i.e. speed * time * driveTicksPerSecond ticks along the row's
+ * direction. Each row follows a MotionProfile over that distance, with the row's speed as the peak
+ * and maxAcceleration/maxJerk as the ramps, instead of stepping the wheels straight to full speed
+ * and back.
+ * Rows don't stop between each other. drive() looks one row ahead and starts the next row's ramp up
+ * while this row ramps down, so the velocity blends from one direction to the next across the
+ * boundary (cutting the corner by a few cm) instead of dropping to zero. It only stops at rest
+ * where a row's stop column is set (see AutoODVuforia.stopAfter()), before a row that doesn't move,
+ * and after the last row. With blend off, every row stops.
+ * Every cycle it reads the encoders, sees through OmniKinematics' inverse where the chassis has
+ * moved in i, j and rotation, and sends povDrive() the rows' profile velocities plus a correction
+ * toward the profiles' position. Near the end of a row that correction alone is too little power
+ * to turn the wheels, so while more than toleranceTicks off, the wheels get at least minPower (like
+ * PositionMove). A stop ends within toleranceTicks of the profile's end, or once the chassis has
+ * stayed within settleWindowTicks for settleCycles cycles in a row inside settleToleranceTicks of
+ * it, so a robot stuck a little short doesn't wait for the timeout.
+ * Expects the drive motors in RUN_WITHOUT_ENCODER (init(..., false)), the executor closes the loop
+ * itself. A power there is a share of the battery, and power / driveTicksPerSecond is the no-load
+ * speed, so the loaded chassis lags every velocity it is given. To make that up, the correction may
+ * drive up to catchUpMargin faster than the rows' speed.
+ * Acceleration, battery voltage and carpet then no longer change where a row ends, only how long
+ * it takes, so times don't need padding anymore. The ramps keep the wheels from slipping, so rows
+ * can use faster speeds than driveSpeedMin.
+ * With useEncoders off, the profiles are played on the clock alone, for when encoders can't be trusted.
+ * Rows that don't move (all zero, or zero speed) just wait their time. A row that never gets there,
+ * e.g. pushing against a wall, gives up after timeoutFactor times its time or its profile's
+ * duration, whichever is longer.
+ * Every cycle logs a flight recorder row tagged with the step, one step per row or hold(). Every
+ * readState() gets its row, the last ones too, so cycles missing from the log are dropped rows.
+ * Every loop also checks stopRequested() each cycle, and stops the wheels and returns once the OP
+ * mode is stopping.
+ */
+
+class ProcedureExecutor {
+
+    //Procedure row columns
+    static final int I = 0, J = 1, CW = 2, SPEED = 3, TIME = 4, STOP = 5, COLUMNS = 6;
+
+    //Along a row's direction, in encoder ticks
+    double maxAcceleration = 4000; //ticks/s^2, ~1.1 m/s^2 at the wheels
+    double maxJerk = 20000; //ticks/s^3, full acceleration in 0.2 s. 0 for trapezoid profiles.
+    double positionGain = 5; //ticks/s of extra velocity per tick behind the profile
+    double catchUpMargin = 0.3; //How much faster than the row's speed the correction may drive
+    double toleranceTicks = 15;
+    double minPower = 0.08; //Less than this and the wheels hum instead of turning
+    double settleToleranceTicks = 40;
+    double settleWindowTicks = 2; //Moving less than this...
+    int settleCycles = 5; //...for this many cycles in a row counts as stopped
+    boolean useEncoders = true;
+    boolean blend = true; //false stops after every row
+    double timeoutFactor = 2;
+    RobotClock clock = RealClock.INSTANCE;
+
+    //Last drive(), for telemetry and the simulator
+    double lastTargetTicks;
+    double lastProgressTicks;
+    boolean lastTimedOut;
+    int timeouts = 0;
+
+    private final Hardware_OD_OmniDirection r;
+    private final FlightRecorder flight;
+    private final LoopScheduler loop;
+    //The row being driven and the one after it. Swapped, never reallocated.
+    private Segment current = new Segment();
+    private Segment next = new Segment();
+    private final double[] rowPowers = new double[4];
+    private final double[] moved = new double[3];
+    private final double[] reference = new double[3];
+    private final double[] command = new double[3];
+    private final int[] startPositions = new int[4];
+    private final int[] deltas = new int[4];
+    private final double[] stillPosition = new double[3]; //Where the current still stretch started
+    private int stillCycles;
+
+    /**A planned row: its profile, unit direction in i, j and rotation, and where and when it starts.*/
+    private static class Segment {
+        final MotionProfile profile = new MotionProfile(0, 0, 0);
+        final double[] unit = new double[3];
+        final double[] start = new double[3]; //chassis ticks from the start of the run
+        double fullSpeedTicks; //along unit, at the row's speed
+        double distance;
+        double time; //the row's time column, ms
+        long startNanos;
+    }
+
+    /* Constructor */
+    ProcedureExecutor(Hardware_OD_OmniDirection r, FlightRecorder flight, LoopScheduler loop){
+        this.r = r;
+        this.flight = flight;
+        this.loop = loop;
+    }
+
+    /**Runs every row of one of table's branches in order. Stops the wheels at the end.*/
+    void drive(ProcedureTable table, int branch) {
+        int row = table.firstRow(branch);
+        int end = table.endRow(branch);
+        while (row < end && !stopRequested()) {
+            if (plan(table, row, current)) {
+                row = driveRun(table, row, end);
+            } else {
+                hold((long) table.get(row, TIME));
+                row++;
+            }
+        }
+    }
+
+    /**
+     * Drives rows from first (already planned into current) on, each blending into the next, up to
+     * and including the first one that has to stop. Returns the row after it.
+     */
+    private int driveRun(ProcedureTable table, int first, int end) {
+        int row = first;
+        long readStart = clock.nanoTime();
+        r.readState();
+        System.arraycopy(r.drivePositions, 0, startPositions, 0, startPositions.length);
+        current.start[0] = current.start[1] = current.start[2] = 0;
+        start(current, clock.nanoTime());
+        flight.record(r.state, (clock.nanoTime() - readStart) / 1e6);
+        boolean hasNext = lookAhead(table, row, end);
+        boolean nextStarted = false;
+        stillCycles = 0;
+
+        loop.start();
+        while (true) {
+            loop.waitForNextCycle();
+            if (stopRequested())
+                break;
+            long cycleStart = clock.nanoTime();
+            r.readState();
+            for (int wheel = 0; wheel < deltas.length; wheel++)
+                deltas[wheel] = r.drivePositions[wheel] - startPositions[wheel];
+            OmniKinematics.chassisVelocity(deltas, moved);
+            if (stillCycles > 0 && distance(moved, stillPosition) <= settleWindowTicks) {
+                stillCycles++;
+            } else {
+                System.arraycopy(moved, 0, stillPosition, 0, stillPosition.length);
+                stillCycles = 1;
+            }
+
+            //Hand over once this row's profile is done and the next one is under way.
+            double t = (cycleStart - current.startNanos) / 1e9;
+            if (hasNext && t >= current.profile.duration() && cycleStart >= next.startNanos) {
+                Segment done = current;
+                current = next;
+                next = done;
+                row++;
+                start(current, current.startNanos);
+                hasNext = lookAhead(table, row, end);
+                nextStarted = false;
+                t = (cycleStart - current.startNanos) / 1e9;
+            }
+            nextStarted |= hasNext && cycleStart >= next.startNanos;
+
+            current.profile.sample(t);
+            double cap = current.fullSpeedTicks;
+            for (int axis = 0; axis < 3; axis++) {
+                reference[axis] = current.start[axis] + current.profile.position * current.unit[axis];
+                command[axis] = current.profile.velocity * current.unit[axis];
+            }
+            if (nextStarted) {
+                next.profile.sample((cycleStart - next.startNanos) / 1e9);
+                cap = Math.max(cap, next.fullSpeedTicks);
+                for (int axis = 0; axis < 3; axis++) {
+                    reference[axis] += next.profile.position * next.unit[axis];
+                    command[axis] += next.profile.velocity * next.unit[axis];
+                }
+            }
+            lastProgressTicks = 0; //distance along this row's direction
+            for (int axis = 0; axis < 3; axis++)
+                lastProgressTicks += (moved[axis] - current.start[axis]) * current.unit[axis];
+
+            double error = distance(reference, moved);
+            boolean finished = !hasNext && t >= current.profile.duration() && (!useEncoders || error <= toleranceTicks
+                    || error <= settleToleranceTicks && stillCycles >= settleCycles);
+            if (!finished && cycleStart >= current.startNanos + (long) (Math.max(current.profile.duration() * 1e3, current.time) * timeoutFactor * 1e6)) {
+                lastTimedOut = true;
+                timeouts++;
+            }
+            if (finished || lastTimedOut) {
+                flight.record(r.state, (clock.nanoTime() - cycleStart) / 1e6);
+                break;
+            }
+            if (useEncoders)
+                for (int axis = 0; axis < 3; axis++)
+                    command[axis] += positionGain * (reference[axis] - moved[axis]);
+            //Never much faster than the rows ask for, however far behind
+            if (useEncoders)
+                cap *= 1 + catchUpMargin;
+            double speed = Math.sqrt(dot(command, command));
+            double scale = speed > cap ? cap / speed : 1;
+            double ticksToPower = scale / r.driveTicksPerSecond;
+            r.povDrive(command[OmniKinematics.I] * ticksToPower, command[OmniKinematics.J] * ticksToPower,
+                    0, command[OmniKinematics.ROTATION] * ticksToPower, 1);
+            if (useEncoders && error > toleranceTicks) {
+                //Same direction, but enough power to actually move
+                double largest = 0;
+                for (double power : r.drivePowers)
+                    largest = Math.max(largest, Math.abs(power));
+                if (largest > 0 && largest < minPower)
+                    for (int wheel = 0; wheel < r.drivePowers.length; wheel++)
+                        r.drivePowers[wheel] *= minPower / largest;
+            }
+            r.update();
+            flight.record(r.state, (clock.nanoTime() - cycleStart) / 1e6);
+        }
+        r.povDrive(0, 0, 0, 0, 0);
+        r.update();
+        return row + 1;
+    }
+
+    /**
+     * Plans the row after row into next, to start while the current one ramps down. False, so the
+     * current row stops, if it has to, there is no next row, or the next one doesn't move.
+     */
+    private boolean lookAhead(ProcedureTable table, int row, int end) {
+        if (!blend || table.get(row, STOP) != 0 || row + 1 >= end || !plan(table, row + 1, next))
+            return false;
+        double overlap = Math.min(current.profile.rampTime(), next.profile.rampTime());
+        next.startNanos = current.startNanos + (long) ((current.profile.duration() - overlap) * 1e9);
+        for (int axis = 0; axis < 3; axis++)
+            next.start[axis] = current.start[axis] + current.distance * current.unit[axis];
+        return true;
+    }
+
+    /**Plans row's profile into segment. False if the row doesn't move.*/
+    private boolean plan(ProcedureTable table, int row, Segment segment) {
+        //Same mix as povDrive(), but into our own array: the wheels may still be driving the last row.
+        OmniKinematics.mix(table.get(row, I), table.get(row, J), table.get(row, CW), table.get(row, SPEED), rowPowers);
+        OmniKinematics.chassisVelocity(rowPowers, segment.unit);
+        double norm = Math.sqrt(dot(segment.unit, segment.unit));
+        if (norm == 0)
+            return false;
+        for (int axis = 0; axis < 3; axis++)
+            segment.unit[axis] /= norm;
+        segment.fullSpeedTicks = norm * r.driveTicksPerSecond;
+        segment.time = table.get(row, TIME);
+        segment.distance = segment.fullSpeedTicks * segment.time / 1000;
+        segment.profile.maxVelocity = segment.fullSpeedTicks;
+        segment.profile.maxAcceleration = maxAcceleration;
+        segment.profile.maxJerk = maxJerk;
+        segment.profile.plan(segment.distance);
+        return true;
+    }
+
+    /**Starts segment as the next procedure step at startNanos.*/
+    private void start(Segment segment, long startNanos) {
+        segment.startNanos = startNanos;
+        r.state.procedureStep++;
+        lastTargetTicks = segment.distance;
+        lastProgressTicks = 0;
+        lastTimedOut = false;
+    }
+
+    /**Waits ms on clock while logging a flight recorder row every loop period, as the next procedure step.
+     * The end time is fixed up front, so reading the robot never stretches a step.*/
+    void hold(long ms) {
+        r.state.procedureStep++;
+        long end = clock.nanoTime() + ms * 1000000;
+        while (true) {
+            if (stopRequested()) {
+                r.povDrive(0, 0, 0, 0, 0);
+                r.update();
+                return;
+            }
+            long cycleStart = clock.nanoTime();
+            r.readState();
+            flight.record(r.state, (clock.nanoTime() - cycleStart) / 1e6);
+            long remaining = end - clock.nanoTime();
+            if (remaining <= 0)
+                break;
+            clock.sleepNanos(Math.min(remaining, loop.targetPeriodNanos));
+        }
+    }
+
+    /**True once the OP mode is stopping (Stop, or the end of autonomous). The SDK interrupts the OP
+     * mode's thread, after which every sleep returns at once, so without this a loop would keep
+     * driving at full speed until the SDK gives up on it and restarts the robot.*/
+    boolean stopRequested() {
+        return Thread.currentThread().isInterrupted();
+    }
+
+    private static double dot(double[] a, double[] b) {
+        return a[0] * b[0] + a[1] * b[1] + a[2] * b[2];
+    }
+
+    private static double distance(double[] a, double[] b) {
+        double di = a[0] - b[0], dj = a[1] - b[1], dr = a[2] - b[2];
+        return Math.sqrt(di * di + dj * dj + dr * dr);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,76 @@
+package org.firstinspires.ftc.teamcode.competitioncode;
+
+/**
+ * Procedure rows [i, j, cw, speed, time, stop] for ProcedureExecutor, compiled once during init.
+ * Holds one or more branches (e.g. one per VuMark column), each a double[][] from fieldTranslate()
+ * and fieldRotate() that is already mirrored. They are checked and copied into one flat array, row
+ * after row, so picking a branch at Start is just an index and driving it allocates nothing.
+ * Nothing can change the rows afterwards: the arrays passed in are copied, not kept.
+ */
+
+class ProcedureTable {
+
+    private final double[] packed; //ProcedureExecutor.COLUMNS values per row, every branch back to back
+    private final int[] branchStarts; //First row of each branch, then the row count
+
+    /* Constructor */
+    ProcedureTable(double[][]... branches){
+        int rows = 0;
+        for (int branch = 0; branch < branches.length; branch++) {
+            if (branches[branch].length == 0)
+                throw new IllegalArgumentException("Branch " + branch + " has no rows");
+            rows += branches[branch].length;
+        }
+        packed = new double[rows * ProcedureExecutor.COLUMNS];
+        branchStarts = new int[branches.length + 1];
+        int row = 0;
+        for (int branch = 0; branch < branches.length; branch++) {
+            branchStarts[branch] = row;
+            for (int i = 0; i < branches[branch].length; i++, row++) {
+                double[] motion = branches[branch][i];
+                String problem = check(motion);
+                if (problem != null)
+                    throw new IllegalArgumentException("Branch " + branch + " row " + i + ": " + problem);
+                System.arraycopy(motion, 0, packed, row * ProcedureExecutor.COLUMNS, ProcedureExecutor.COLUMNS);
+            }
+        }
+        branchStarts[branches.length] = row;
+    }
+
+    int branches() {
+        return branchStarts.length - 1;
+    }
+
+    /**First row of branch. Rows are numbered across the whole table.*/
+    int firstRow(int branch) {
+        return branchStarts[branch];
+    }
+
+    /**One past the last row of branch.*/
+    int endRow(int branch) {
+        return branchStarts[branch + 1];
+    }
+
+    double get(int row, int column) {
+        return packed[row * ProcedureExecutor.COLUMNS + column];
+    }
+
+    /**What is wrong with a row, or null if nothing is.*/
+    static String check(double[] motion) {
+        if (motion.length != ProcedureExecutor.COLUMNS)
+            return motion.length + " columns instead of " + ProcedureExecutor.COLUMNS;
+        for (double value : motion)
+            if (Double.isNaN(value) || Double.isInfinite(value))
+                return "not a number";
+        if (Math.abs(motion[ProcedureExecutor.I]) > 1 || Math.abs(motion[ProcedureExecutor.J]) > 1
+                || Math.abs(motion[ProcedureExecutor.CW]) > 1)
+            return "i, j and cw must be -1 to 1";
+        if (Math.abs(motion[ProcedureExecutor.SPEED]) > 1)
+            return "speed must be -1 to 1";
+        if (motion[ProcedureExecutor.TIME] < 0)
+            return "negative time";
+        if (motion[ProcedureExecutor.STOP] != 0 && motion[ProcedureExecutor.STOP] != 1)
+            return "stop must be 0 or 1";
+        return null;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,38 @@
+package org.firstinspires.ftc.teamcode.competitioncode;
+
+/**
+ * The robot's actual time. Sleeps behave like LinearOpMode.sleep(): when interrupted (OP mode
+ * stopping) they return early and leave the interrupt flag set for opModeIsActive() to see.
+ */
+
+final class RealClock implements RobotClock {
+
+    static final RealClock INSTANCE = new RealClock();
+
+    /* Constructor */
+    private RealClock(){
+    }
+
+    @Override
+    public long nanoTime() {
+        return System.nanoTime();
+    }
+
+    @Override
+    public void sleep(long milliseconds) {
+        try {
+            Thread.sleep(milliseconds);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void sleepNanos(long nanoseconds) {
+        try {
+            Thread.sleep(nanoseconds / 1000000, (int) (nanoseconds % 1000000));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package org.firstinspires.ftc.teamcode.competitioncode;
+
+/**
+ * Where hardware classes, loops and autonomous routines get the time and how they wait.
+ * RealClock is System.nanoTime() and Thread.sleep(). In simulation a virtual clock is swapped in,
+ * which jumps straight to the end of every sleep, so a 30 second routine runs in milliseconds.
+ * Public so the simulation package can implement it.
+ */
+
+public interface RobotClock {
+
+    /**Nanoseconds from an arbitrary origin, like System.nanoTime().*/
+    long nanoTime();
+
+    void sleep(long milliseconds);
+
+    void sleepNanos(long nanoseconds);
+}
@@ -0,0 +1,42 @@
+package org.firstinspires.ftc.teamcode.competitioncode;
+
+/**
+ * Snapshot of the robot, filled once at the start of each control cycle by the hardware class'
+ * readState(). Control logic, telemetry and logging read from here instead of asking the hub again,
+ * so each encoder costs one read per cycle no matter how many things look at it.
+ * Powers and claw position are what we commanded, which we already know without asking the hub.
+ * Arrays are indexed the same way as the hardware class' drive motors.
+ */
+
+class RobotState {
+
+    long timestampNanos;
+    long cycleCount;
+    int procedureStep = -1; //Which autonomous step is running, for the flight recorder. -1 in TeleOP.
+
+    //DRIVE
+    final int[] driveEncoders;
+    final double[] drivePowers;
+    double driveSpeed;
+
+    //MAIN ARM
+    int armPosition;
+    double armPower;
+
+    //CLAW
+    double clawPosition;
+
+    /* Constructor */
+    RobotState(int driveMotorCount){
+        driveEncoders = new int[driveMotorCount];
+        drivePowers = new double[driveMotorCount];
+    }
+
+    /**Average distance traveled by the drive wheels, ignoring sign. Handy for "how far did we go".*/
+    double averageAbsEncoder() {
+        double sum = 0;
+        for (int position : driveEncoders)
+            sum += Math.abs(position);
+        return sum / driveEncoders.length;
+    }
+}
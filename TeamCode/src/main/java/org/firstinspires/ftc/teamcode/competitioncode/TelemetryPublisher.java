@@ -0,0 +1,106 @@
+package org.firstinspires.ftc.teamcode.competitioncode;
+
+/**
+ * Rate-limited telemetry for OP mode loops. The Driver Station only shows a few updates a second,
+ * so building strings and calling telemetry.update() every control cycle is wasted time.
+ * Lines are registered once during init with addLine(). Then, only when isDue():
+ *     appendFixed(publisher.line(SPEED_LINE), r.state.driveSpeed, 2);
+ *     ...
+ *     publisher.publish();
+ * Each line is formatted into its own reused StringBuilder. A new String is only made for a line
+ * whose text actually changed, and telemetry.update() is skipped when no line changed.
+ */
+
+import org.firstinspires.ftc.robotcore.external.Telemetry;
+
+import java.util.ArrayList;
+
+class TelemetryPublisher {
+
+    long publishes = 0;
+    long linesChanged = 0;
+    long linesUnchanged = 0;
+    RobotClock clock = RealClock.INSTANCE; //Publish rate follows this, e.g. a virtual clock in simulation
+
+    private final Telemetry telemetry;
+    private final ArrayList<Telemetry.Item> items = new ArrayList<>();
+    private final ArrayList<StringBuilder> builders = new ArrayList<>();
+    private final ArrayList<String> sentValues = new ArrayList<>();
+    private long periodNanos;
+    private long lastPublishNanos; //Once publishes > 0
+
+    /* Constructor */
+    TelemetryPublisher(Telemetry telemetry, double publishHz){
+        this.telemetry = telemetry;
+        //Items stay on screen between updates, we only change their values.
+        telemetry.setAutoClear(false);
+        setPublishHz(publishHz);
+    }
+
+    /**Adds a line during init, returns its index for line().*/
+    int addLine(String caption) {
+        sentValues.add("");
+        items.add(telemetry.addData(caption, ""));
+        builders.add(new StringBuilder(64));
+        return builders.size() - 1;
+    }
+
+    void setPublishHz(double publishHz) {
+        periodNanos = (long) (1e9 / publishHz);
+        telemetry.setMsTransmissionInterval((int) (periodNanos / 1000000));
+    }
+
+    /**True once per publish period. Only format lines when this is true.*/
+    boolean isDue() {
+        return publishes == 0 || clock.nanoTime() - lastPublishNanos >= periodNanos;
+    }
+
+    /**Empties and returns the builder for a line, ready to be appended to.*/
+    StringBuilder line(int index) {
+        StringBuilder builder = builders.get(index);
+        builder.setLength(0);
+        return builder;
+    }
+
+    /**Sends the lines whose text changed since the last publish.*/
+    void publish() {
+        lastPublishNanos = clock.nanoTime();
+        publishes++;
+        boolean anyChanged = false;
+        for (int i = 0; i < builders.size(); i++) {
+            StringBuilder builder = builders.get(i);
+            if (sentValues.get(i).contentEquals(builder)) {
+                linesUnchanged++;
+                continue;
+            }
+            String value = builder.toString();
+            sentValues.set(i, value);
+            items.get(i).setValue(value);
+            linesChanged++;
+            anyChanged = true;
+        }
+        if (anyChanged)
+            telemetry.update();
+    }
+
+    /**Appends a number with a fixed number of decimals, without String.format's allocations.*/
+    static StringBuilder appendFixed(StringBuilder builder, double value, int decimals) {
+        if (Double.isNaN(value) || Double.isInfinite(value))
+            return builder.append(value);
+        long scale = 1;
+        for (int i = 0; i < decimals; i++)
+            scale *= 10;
+        long scaled = Math.round(Math.abs(value) * scale);
+        if (value < 0 && scaled != 0)
+            builder.append('-');
+        builder.append(scaled / scale);
+        if (decimals > 0) {
+            builder.append('.');
+            long fraction = scaled % scale;
+            for (long digit = scale / 10; digit > 1 && fraction < digit; digit /= 10)
+                builder.append('0'); //leading zeros of the fraction
+            builder.append(fraction);
+        }
+        return builder;
+    }
+}
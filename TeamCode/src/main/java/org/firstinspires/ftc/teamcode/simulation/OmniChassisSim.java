@@ -0,0 +1,177 @@
+package org.firstinspires.ftc.teamcode.simulation;
+
+/**
+ * 2D rigid body model of the Omni-Direction robot: four omni wheels on the corners at 45 degrees
+ * (an X-drive), each pushing along the tangent of the circle through the wheels.
+ * Every step, each wheel's motor makes torque from its power and speed (straight line DC motor
+ * curve: stall torque at zero speed, zero torque at free speed), less the power its friction
+ * takes (SimDcMotor.afterFriction()). The drive force is limited by
+ * traction, the rollers add a little sideways drag, and the sum of forces and torques moves the body.
+ * Encoders follow the wheels' ground speed, so slipping wheels read short like real ones do.
+ * Alongside, an ideal pose integrates the same motor powers as if the wheels hit free speed
+ * instantly with perfect grip. The difference between the two is what time-based procedure
+ * tables get wrong from acceleration, braking and slip. With idealFollowsMotors off, the ideal
+ * pose only moves through moveIdeal(), e.g. to where a procedure table means the robot to go.
+ * Units are SI: meters, radians, seconds. Field x is right, y is forward, heading is
+ * counter-clockwise with 0 facing +y.
+ */
+
+import com.qualcomm.robotcore.hardware.DcMotor;
+import com.qualcomm.robotcore.util.Range;
+
+public class OmniChassisSim implements SimDevice {
+
+    //MODEL, roughly our 18" robot on NeveRest 40s and 4" omni wheels
+    public double massKg = 14;
+    public double momentOfInertia = 0.5; //kg m^2
+    public double wheelRadius = 0.0508;
+    public double stallTorque = 2.47; //N m
+    public double freeSpeedRadPerSec = 160 * 2 * Math.PI / 60;
+    public double traction = 0.7; //Grip along the drive direction, as a fraction of each wheel's weight
+    public double rollerDrag = 2.0; //N per m/s of sideways slide
+    public double ticksPerRev = 1120;
+
+    //POSE, physics
+    public double x = 0;
+    public double y = 0;
+    public double heading = 0;
+    public double vx = 0;
+    public double vy = 0;
+    public double omega = 0;
+
+    //POSE, ideal kinematics
+    public double idealX = 0;
+    public double idealY = 0;
+    public double idealHeading = 0;
+    public boolean idealFollowsMotors = true;
+
+    private static final double GRAVITY = 9.81;
+    private static final double MAX_IDEAL_STEP = 0.001; //seconds, moveIdeal() integrates turns in steps this long
+
+    private final SimDcMotor[] motors;
+    private final double[] wheelX;
+    private final double[] wheelY;
+    private final double[] driveX; //Unit vector a positive shaft turn pushes the robot along, body frame.
+    private final double[] driveY;
+    private final double[] wheelRadiusToCenter;
+    private final double[] wheelAngle; //radians turned, for the encoders
+    private final double[] commands; //each motor's shaft command this step
+
+    /* Constructor */
+    public OmniChassisSim(SimClock clock, SimDcMotor[] motors, double[] wheelX, double[] wheelY){
+        this.motors = motors;
+        this.wheelX = wheelX;
+        this.wheelY = wheelY;
+        driveX = new double[motors.length];
+        driveY = new double[motors.length];
+        wheelRadiusToCenter = new double[motors.length];
+        wheelAngle = new double[motors.length];
+        commands = new double[motors.length];
+        for (int i = 0; i < motors.length; i++) {
+            wheelRadiusToCenter[i] = Math.hypot(wheelX[i], wheelY[i]);
+            driveX[i] = -wheelY[i] / wheelRadiusToCenter[i]; //counter-clockwise tangent
+            driveY[i] = wheelX[i] / wheelRadiusToCenter[i];
+            motors[i].driveExternally();
+        }
+        clock.register(this); //after the motors, so their commands are current when we step
+    }
+
+    /**Chassis for SimHardwareMap.omniDirection(), wheels halfTrack meters from the center on each axis.*/
+    public static OmniChassisSim omniDirection(SimHardwareMap map, double halfTrack) {
+        return new OmniChassisSim(map.clock,
+                new SimDcMotor[]{
+                        map.simMotor("leftRearDrive"),
+                        map.simMotor("rightFrontDrive"),
+                        map.simMotor("leftFrontDrive"),
+                        map.simMotor("rightRearDrive")},
+                new double[]{-halfTrack, halfTrack, -halfTrack, halfTrack},
+                new double[]{-halfTrack, halfTrack, halfTrack, -halfTrack});
+    }
+
+    @Override
+    public void step(double dtSeconds) {
+        double cos = Math.cos(heading);
+        double sin = Math.sin(heading);
+        double bodyVx = cos * vx + sin * vy;
+        double bodyVy = -sin * vx + cos * vy;
+        double maxForce = traction * massKg * GRAVITY / motors.length;
+
+        double forceX = 0, forceY = 0, torque = 0;
+        for (int i = 0; i < motors.length; i++) {
+            //Speed of the wheel's contact patch, split into along the wheel and along the rollers.
+            double contactVx = bodyVx - omega * wheelY[i];
+            double contactVy = bodyVy + omega * wheelX[i];
+            double along = contactVx * driveX[i] + contactVy * driveY[i];
+            double sideways = -contactVx * driveY[i] + contactVy * driveX[i];
+            double wheelSpeed = along / wheelRadius;
+
+            double command = motors[i].getShaftCommand();
+            commands[i] = command;
+            double motorTorque;
+            if (command == 0 && motors[i].getZeroPowerBehavior() == DcMotor.ZeroPowerBehavior.FLOAT)
+                motorTorque = 0;
+            else
+                motorTorque = stallTorque * (motors[i].afterFriction(command) - wheelSpeed / freeSpeedRadPerSec);
+            double drive = Range.clip(motorTorque / wheelRadius, -maxForce, maxForce);
+            double side = -rollerDrag * sideways;
+
+            double wheelForceX = drive * driveX[i] - side * driveY[i];
+            double wheelForceY = drive * driveY[i] + side * driveX[i];
+            forceX += wheelForceX;
+            forceY += wheelForceY;
+            torque += wheelX[i] * wheelForceY - wheelY[i] * wheelForceX;
+
+            wheelAngle[i] += wheelSpeed * dtSeconds;
+            double ticksPerRadian = ticksPerRev / (2 * Math.PI);
+            motors[i].setShaftState(wheelAngle[i] * ticksPerRadian, wheelSpeed * ticksPerRadian);
+        }
+
+        vx += (cos * forceX - sin * forceY) / massKg * dtSeconds;
+        vy += (sin * forceX + cos * forceY) / massKg * dtSeconds;
+        omega += torque / momentOfInertia * dtSeconds;
+        x += vx * dtSeconds;
+        y += vy * dtSeconds;
+        heading += omega * dtSeconds;
+
+        if (idealFollowsMotors)
+            moveIdeal(commands, dtSeconds);
+    }
+
+    /**
+     * Moves the ideal pose as if each wheel ran at its shaft command (power times the motor's
+     * direction sign, in the order the motors were given) for seconds, at free speed with perfect grip.
+     */
+    public void moveIdeal(double[] shaftCommands, double seconds) {
+        //Least squares fit for four tangent wheels
+        double idealVx = 0, idealVy = 0, idealOmega = 0;
+        for (int i = 0; i < motors.length; i++) {
+            double surfaceSpeed = shaftCommands[i] * freeSpeedRadPerSec * wheelRadius;
+            idealVx += 2.0 / motors.length * surfaceSpeed * driveX[i];
+            idealVy += 2.0 / motors.length * surfaceSpeed * driveY[i];
+            idealOmega += surfaceSpeed / wheelRadiusToCenter[i] / motors.length;
+        }
+        while (seconds > 0) {
+            double dt = Math.min(seconds, MAX_IDEAL_STEP);
+            double idealCos = Math.cos(idealHeading);
+            double idealSin = Math.sin(idealHeading);
+            idealX += (idealCos * idealVx - idealSin * idealVy) * dt;
+            idealY += (idealSin * idealVx + idealCos * idealVy) * dt;
+            idealHeading += idealOmega * dt;
+            seconds -= dt;
+        }
+    }
+
+    /**Distance between the physics and the ideal pose, meters.*/
+    public double positionError() {
+        return Math.hypot(x - idealX, y - idealY);
+    }
+
+    /**Heading difference between the physics and the ideal pose, radians, -pi to pi.*/
+    public double headingError() {
+        return Math.atan2(Math.sin(heading - idealHeading), Math.cos(heading - idealHeading));
+    }
+
+    public double speed() {
+        return Math.hypot(vx, vy);
+    }
+}
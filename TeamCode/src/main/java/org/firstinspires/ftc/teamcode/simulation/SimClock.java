@@ -0,0 +1,106 @@
+package org.firstinspires.ftc.teamcode.simulation;
+
+/**
+ * Time source for simulated devices. Devices register themselves and are stepped forward whenever
+ * the clock moves, in small fixed steps so the motor models stay accurate.
+ * Two kinds:
+ *     new SimClock()                  - virtual, only moves when advance() is called. Deterministic,
+ *                                       for tests that drive the loop themselves.
+ *     SimClock.followingWallClock()   - tracks System.nanoTime(), for running OP modes unchanged,
+ *                                       since they sleep() and use plain ElapsedTimes. Devices catch
+ *                                       up lazily whenever they are read or written.
+ * hubLatencyNanos makes every device read or write take time, like a call to a real hub does:
+ * a wall clock blocks the calling thread for that long, a virtual clock moves forward by it.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+public class SimClock {
+
+    public static final long MAX_STEP_NANOS = 1000000; //1 ms
+
+    /**Time each device read or write takes. 0 by default; a REV hub over USB is about 2-3 ms.*/
+    public long hubLatencyNanos = 0;
+    public long hubCalls = 0;
+
+    private final boolean followsWallClock;
+    private final long wallStartNanos;
+    private final List<SimDevice> devices = new ArrayList<>();
+    private long nanos = 0; //How far the devices have been stepped.
+
+    /* Constructor */
+    public SimClock(){
+        this(false);
+    }
+
+    private SimClock(boolean followsWallClock){
+        this.followsWallClock = followsWallClock;
+        this.wallStartNanos = System.nanoTime();
+    }
+
+    public static SimClock followingWallClock() {
+        return new SimClock(true);
+    }
+
+    public boolean followsWallClock() {
+        return followsWallClock;
+    }
+
+    public void register(SimDevice device) {
+        devices.add(device);
+    }
+
+    /**Simulated time in nanoseconds since the clock was made.*/
+    public long nanoTime() {
+        catchUp();
+        return nanos;
+    }
+
+    public double seconds() {
+        return nanoTime() / 1e9;
+    }
+
+    /**Moves a virtual clock forward, stepping every device along the way.*/
+    public void advance(long nanos) {
+        if (followsWallClock)
+            throw new IllegalStateException("This SimClock follows the wall clock and can't be advanced by hand");
+        stepTo(this.nanos + nanos);
+    }
+
+    public void advanceMillis(double millis) {
+        advance((long) (millis * 1e6));
+    }
+
+    /**Devices call this on every read or write that would go to a real hub.*/
+    public void hubCall() {
+        hubCalls++;
+        if (hubLatencyNanos > 0) {
+            if (followsWallClock) {
+                long end = System.nanoTime() + hubLatencyNanos;
+                for (long left = hubLatencyNanos; left > 0; left = end - System.nanoTime())
+                    LockSupport.parkNanos(left);
+            } else {
+                advance(hubLatencyNanos);
+            }
+        }
+        catchUp();
+    }
+
+    /**For a wall clock, steps the devices up to now. Does nothing for a virtual clock.*/
+    public void catchUp() {
+        if (followsWallClock)
+            stepTo(System.nanoTime() - wallStartNanos);
+    }
+
+    private void stepTo(long targetNanos) {
+        while (nanos < targetNanos) {
+            long step = Math.min(MAX_STEP_NANOS, targetNanos - nanos);
+            double dtSeconds = step / 1e9;
+            for (int i = 0; i < devices.size(); i++)
+                devices.get(i).step(dtSeconds);
+            nanos += step;
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package org.firstinspires.ftc.teamcode.simulation;
+
+/**
+ * Simulated DC motor with encoder. The shaft speed follows the commanded power as a first order lag:
+ *     speed -> power * freeSpeedTicksPerSecond, with time constant timeConstantSeconds
+ * Each step is solved exactly for a constant command, so the step size only matters in RUN_TO_POSITION.
+ * Friction takes the first staticFrictionPower of every command, so small powers don't turn the
+ * shaft at all, like a real gearmotor that just hums. See afterFriction().
+ * Defaults are roughly an AndyMark NeveRest 40 with no load.
+ * Modes behave like the SDK's: RUN_TO_POSITION drives to the target at |power| and slows down near
+ * it, STOP_AND_RESET_ENCODER stops the motor and zeroes the encoder, the rest just apply power.
+ * Position and speed are kept in shaft direction; getCurrentPosition() applies setDirection() like the SDK.
+ * A drivetrain model (e.g. OmniChassisSim) can take over the shaft with driveExternally(), then
+ * this class only reports the power it is asked for and the encoder position it is given.
+ */
+
+import com.qualcomm.robotcore.hardware.DcMotor;
+import com.qualcomm.robotcore.hardware.DcMotorController;
+import com.qualcomm.robotcore.hardware.configuration.MotorConfigurationType;
+import com.qualcomm.robotcore.util.Range;
+
+public class SimDcMotor implements DcMotor, SimDevice {
+
+    //MODEL
+    public double ticksPerRev = 1120;
+    public double freeSpeedTicksPerSecond = 1120 * 160 / 60.0; //160 rpm
+    public double timeConstantSeconds = 0.1;
+    public double floatSlowdown = 5; //Coasting stops this many times slower than braking.
+    public double staticFrictionPower = 0.05; //Loaded drive motors need a bit more than this to turn
+    public int positionTolerance = 10; //RUN_TO_POSITION counts as done within this many ticks.
+    public int slowdownTicks = 200; //RUN_TO_POSITION ramps power down over the last this many ticks.
+
+    //COUNTERS, for checking how often the code under test talks to the "hub".
+    public long powerWrites = 0;
+    public long modeWrites = 0;
+    public long targetWrites = 0;
+    public long positionReads = 0;
+
+    private final String name;
+    private final SimClock clock;
+    private MotorConfigurationType motorType = null;
+    private Direction direction = Direction.FORWARD;
+    private ZeroPowerBehavior zeroPowerBehavior = ZeroPowerBehavior.BRAKE;
+    private RunMode mode = RunMode.RUN_WITHOUT_ENCODER;
+    private RunMode currentMode = mode; //mode under its current name, see currentName()
+    private double power = 0;
+    private int targetPosition = 0;
+    private double shaftPosition = 0; //ticks
+    private double shaftSpeed = 0; //ticks per second
+    private double encoderZero = 0; //shaftPosition at the last encoder reset
+    private boolean externallyDriven = false;
+
+    /* Constructor */
+    public SimDcMotor(String name, SimClock clock){
+        this.name = name;
+        this.clock = clock;
+        clock.register(this);
+    }
+
+    @Override
+    public void step(double dtSeconds) {
+        if (externallyDriven)
+            return;
+        double command = getShaftCommand();
+        double targetSpeed = afterFriction(command) * freeSpeedTicksPerSecond;
+        double tau = timeConstantSeconds;
+        if (command == 0 && zeroPowerBehavior == ZeroPowerBehavior.FLOAT)
+            tau *= floatSlowdown;
+        double decay = Math.exp(-dtSeconds / tau);
+        shaftPosition += targetSpeed * dtSeconds + (shaftSpeed - targetSpeed) * tau * (1 - decay);
+        shaftSpeed = targetSpeed + (shaftSpeed - targetSpeed) * decay;
+    }
+
+    /**Fraction of full speed the controller is asking for, in user direction.*/
+    private double commandedFraction() {
+        switch (currentMode) {
+            case STOP_AND_RESET_ENCODER:
+                return 0;
+            case RUN_TO_POSITION:
+                double error = targetPosition - userPosition();
+                if (Math.abs(error) <= positionTolerance)
+                    return 0;
+                return Math.abs(power) * Range.clip(error / slowdownTicks, -1, 1);
+            default:
+                return power;
+        }
+    }
+
+    private double directionSign() {
+        return direction == Direction.REVERSE ? -1 : 1;
+    }
+
+    private double userPosition() {
+        return directionSign() * (shaftPosition - encoderZero);
+    }
+
+    /**Hands the shaft over to a drivetrain model, which then calls setShaftState() every step.*/
+    public void driveExternally() {
+        externallyDriven = true;
+    }
+
+    /**Power the controller is applying to the shaft right now, -1 to 1, in shaft direction.
+     * For drivetrain models, called from their step().*/
+    public double getShaftCommand() {
+        return directionSign() * commandedFraction();
+    }
+
+    /**What is left of a shaft command once friction has taken its share: nothing up to
+     * staticFrictionPower, the rest above it. For drivetrain models too.*/
+    public double afterFriction(double command) {
+        if (Math.abs(command) <= staticFrictionPower)
+            return 0;
+        return command - Math.signum(command) * staticFrictionPower;
+    }
+
+    /**For drivetrain models: where their physics put this motor's shaft.*/
+    public void setShaftState(double positionTicks, double speedTicksPerSecond) {
+        shaftPosition = positionTicks;
+        shaftSpeed = speedTicksPerSecond;
+    }
+
+    /**Shaft speed in ticks per second, not affected by setDirection(). For chassis models.*/
+    public double getShaftSpeed() {
+        clock.catchUp();
+        return shaftSpeed;
+    }
+
+    /**Shaft position in ticks, not affected by setDirection() or encoder resets. For chassis models.*/
+    public double getShaftPosition() {
+        clock.catchUp();
+        return shaftPosition;
+    }
+
+    @Override
+    public void setPower(double power) {
+        clock.hubCall(); //The old power applies up to now
+        this.power = Range.clip(power, -1, 1);
+        powerWrites++;
+    }
+
+    @Override
+    public double getPower() {
+        return power;
+    }
+
+    @Override
+    public void setMode(RunMode mode) {
+        clock.hubCall();
+        this.mode = mode;
+        currentMode = currentName(mode);
+        if (currentMode == RunMode.STOP_AND_RESET_ENCODER) {
+            encoderZero = shaftPosition;
+            if (!externallyDriven)
+                shaftSpeed = 0;
+        }
+        modeWrites++;
+    }
+
+    /**Old code (e.g. Armless_Hardware_OD_OmniDirection) still sets the SDK's deprecated mode names,
+     * like RESET_ENCODERS. Maps them to the current ones, like the deprecated RunMode.migrate() does.*/
+    private static RunMode currentName(RunMode mode) {
+        switch (mode) {
+            case RUN_WITHOUT_ENCODERS:
+                return RunMode.RUN_WITHOUT_ENCODER;
+            case RUN_USING_ENCODERS:
+                return RunMode.RUN_USING_ENCODER;
+            case RESET_ENCODERS:
+                return RunMode.STOP_AND_RESET_ENCODER;
+            default:
+                return mode;
+        }
+    }
+
+    @Override
+    public RunMode getMode() {
+        return mode;
+    }
+
+    @Override
+    public void setTargetPosition(int position) {
+        clock.hubCall();
+        targetPosition = position;
+        targetWrites++;
+    }
+
+    @Override
+    public int getTargetPosition() {
+        return targetPosition;
+    }
+
+    @Override
+    public int getCurrentPosition() {
+        clock.hubCall();
+        positionReads++;
+        return (int) Math.round(userPosition());
+    }
+
+    @Override
+    public boolean isBusy() {
+        clock.hubCall();
+        return currentMode == RunMode.RUN_TO_POSITION
+                && Math.abs(targetPosition - userPosition()) > positionTolerance;
+    }
+
+    @Override
+    public void setDirection(Direction direction) {
+        clock.hubCall();
+        this.direction = direction;
+    }
+
+    @Override
+    public Direction getDirection() {
+        return direction;
+    }
+
+    @Override
+    public void setZeroPowerBehavior(ZeroPowerBehavior zeroPowerBehavior) {
+        clock.hubCall();
+        if (zeroPowerBehavior != ZeroPowerBehavior.UNKNOWN)
+            this.zeroPowerBehavior = zeroPowerBehavior;
+    }
+
+    @Override
+    public ZeroPowerBehavior getZeroPowerBehavior() {
+        return zeroPowerBehavior;
+    }
+
+    @Override
+    @Deprecated
+    public void setPowerFloat() {
+        setZeroPowerBehavior(ZeroPowerBehavior.FLOAT);
+        setPower(0);
+    }
+
+    @Override
+    public boolean getPowerFloat() {
+        return zeroPowerBehavior == ZeroPowerBehavior.FLOAT && power == 0;
+    }
+
+    @Override
+    public MotorConfigurationType getMotorType() {
+        return motorType; //null unless set, the SDK's types need the app's configuration files
+    }
+
+    @Override
+    public void setMotorType(MotorConfigurationType motorType) {
+        this.motorType = motorType;
+    }
+
+    @Override
+    public DcMotorController getController() {
+        return null; //No controller to simulate
+    }
+
+    @Override
+    public int getPortNumber() {
+        return 0;
+    }
+
+    @Override
+    public Manufacturer getManufacturer() {
+        return Manufacturer.Other;
+    }
+
+    @Override
+    public String getDeviceName() {
+        return "Simulated DC motor";
+    }
+
+    @Override
+    public String getConnectionInfo() {
+        return "sim:" + name;
+    }
+
+    @Override
+    public int getVersion() {
+        return 1;
+    }
+
+    @Override
+    public void resetDeviceConfigurationForOpMode() {
+        direction = Direction.FORWARD;
+    }
+
+    @Override
+    public void close() {
+        setPower(0);
+    }
+}
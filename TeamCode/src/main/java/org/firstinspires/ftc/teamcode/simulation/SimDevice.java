@@ -0,0 +1,11 @@
+package org.firstinspires.ftc.teamcode.simulation;
+
+/**
+ * Anything with physics that a SimClock moves forward in time.
+ */
+
+public interface SimDevice {
+
+    /**Moves the device forward by dtSeconds. Called by SimClock in steps of at most SimClock.MAX_STEP_NANOS.*/
+    void step(double dtSeconds);
+}
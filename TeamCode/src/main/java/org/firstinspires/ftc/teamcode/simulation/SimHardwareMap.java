@@ -0,0 +1,74 @@
+package org.firstinspires.ftc.teamcode.simulation;
+
+/**
+ * HardwareMap filled with simulated devices, so the hardware classes and OP mode logic run on a plain JVM:
+ *     SimClock clock = new SimClock();
+ *     SimHardwareMap map = SimHardwareMap.omniDirection(clock);
+ *     r.init(map, false);
+ *     ...
+ *     clock.advanceMillis(20);
+ * Devices are found with the usual hwMap.get(DcMotor.class, "leftRearDrive"), or as their Sim type
+ * with simMotor()/simServo() to look at encoders, counters and model settings.
+ * There is no app context, so anything that needs one (Vuforia, resources) can't run here.
+ */
+
+import com.qualcomm.robotcore.hardware.HardwareMap;
+
+public class SimHardwareMap extends HardwareMap {
+
+    public final SimClock clock;
+
+    /* Constructor */
+    public SimHardwareMap(SimClock clock){
+        super(null);
+        this.clock = clock;
+    }
+
+    /**Devices used by Hardware_OD_OmniDirection (and Armless_Hardware_OD_OmniDirection).*/
+    public static SimHardwareMap omniDirection(SimClock clock) {
+        SimHardwareMap map = new SimHardwareMap(clock);
+        map.addMotor("leftRearDrive");
+        map.addMotor("rightFrontDrive");
+        map.addMotor("leftFrontDrive");
+        map.addMotor("rightRearDrive");
+        map.addMotor("mainArm");
+        map.addServo("leftBottomClaw");
+        map.addServo("rightBottomClaw");
+        map.addServo("leftTopClaw");
+        map.addServo("rightTopClaw");
+        return map;
+    }
+
+    /**Devices used by Hardware_RWD_RearWheelDrive.*/
+    public static SimHardwareMap rearWheelDrive(SimClock clock) {
+        SimHardwareMap map = new SimHardwareMap(clock);
+        map.addMotor("leftDrive");
+        map.addMotor("rightDrive");
+        map.addMotor("mainArm");
+        map.addServo("leftClaw");
+        map.addServo("rightClaw");
+        map.addServo("leftTopClaw");
+        map.addServo("rightTopClaw");
+        return map;
+    }
+
+    public SimDcMotor addMotor(String name) {
+        SimDcMotor motor = new SimDcMotor(name, clock);
+        dcMotor.put(name, motor);
+        return motor;
+    }
+
+    public SimServo addServo(String name) {
+        SimServo simServo = new SimServo(name, clock);
+        servo.put(name, simServo);
+        return simServo;
+    }
+
+    public SimDcMotor simMotor(String name) {
+        return (SimDcMotor) dcMotor.get(name);
+    }
+
+    public SimServo simServo(String name) {
+        return (SimServo) servo.get(name);
+    }
+}
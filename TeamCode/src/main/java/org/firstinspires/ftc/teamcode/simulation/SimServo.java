@@ -0,0 +1,123 @@
+package org.firstinspires.ftc.teamcode.simulation;
+
+/**
+ * Simulated servo. getPosition() returns what was commanded, like the SDK does, while
+ * getActualPosition() is where the horn is, moving towards the command at a fixed speed.
+ */
+
+import com.qualcomm.robotcore.hardware.Servo;
+import com.qualcomm.robotcore.hardware.ServoController;
+import com.qualcomm.robotcore.util.Range;
+
+public class SimServo implements Servo, SimDevice {
+
+    //MODEL
+    public double fullRangeSeconds = 0.6; //Time to sweep 0 to 1, about a standard hobby servo.
+
+    //COUNTERS
+    public long positionWrites = 0;
+
+    private final String name;
+    private final SimClock clock;
+    private Direction direction = Direction.FORWARD;
+    private double scaleMin = MIN_POSITION;
+    private double scaleMax = MAX_POSITION;
+    private double position = Double.NaN; //Commanded, NaN until the first setPosition like a real servo.
+    private double actualPosition = 0.5;
+
+    /* Constructor */
+    public SimServo(String name, SimClock clock){
+        this.name = name;
+        this.clock = clock;
+        clock.register(this);
+    }
+
+    @Override
+    public void step(double dtSeconds) {
+        if (Double.isNaN(position))
+            return; //Unpowered until commanded
+        double target = physicalTarget();
+        double maxMove = dtSeconds / fullRangeSeconds;
+        actualPosition += Range.clip(target - actualPosition, -maxMove, maxMove);
+    }
+
+    /**Where the servo horn is, 0 to 1, before direction and scaleRange.*/
+    public double getActualPosition() {
+        clock.catchUp();
+        return actualPosition;
+    }
+
+    private double physicalTarget() {
+        double scaled = scaleMin + (scaleMax - scaleMin) * position;
+        return direction == Direction.REVERSE ? MAX_POSITION - scaled : scaled;
+    }
+
+    @Override
+    public void setPosition(double position) {
+        clock.hubCall();
+        this.position = Range.clip(position, MIN_POSITION, MAX_POSITION);
+        positionWrites++;
+    }
+
+    @Override
+    public double getPosition() {
+        return position;
+    }
+
+    @Override
+    public void scaleRange(double min, double max) {
+        scaleMin = Range.clip(Math.min(min, max), MIN_POSITION, MAX_POSITION);
+        scaleMax = Range.clip(Math.max(min, max), MIN_POSITION, MAX_POSITION);
+    }
+
+    @Override
+    public void setDirection(Direction direction) {
+        this.direction = direction;
+    }
+
+    @Override
+    public Direction getDirection() {
+        return direction;
+    }
+
+    @Override
+    public ServoController getController() {
+        return null; //No controller to simulate
+    }
+
+    @Override
+    public int getPortNumber() {
+        return 0;
+    }
+
+    @Override
+    public Manufacturer getManufacturer() {
+        return Manufacturer.Other;
+    }
+
+    @Override
+    public String getDeviceName() {
+        return "Simulated servo";
+    }
+
+    @Override
+    public String getConnectionInfo() {
+        return "sim:" + name;
+    }
+
+    @Override
+    public int getVersion() {
+        return 1;
+    }
+
+    @Override
+    public void resetDeviceConfigurationForOpMode() {
+        direction = Direction.FORWARD;
+        scaleMin = MIN_POSITION;
+        scaleMax = MAX_POSITION;
+    }
+
+    @Override
+    public void close() {
+    }
+}
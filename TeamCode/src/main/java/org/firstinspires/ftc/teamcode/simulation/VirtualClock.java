@@ -0,0 +1,35 @@
+package org.firstinspires.ftc.teamcode.simulation;
+
+/**
+ * RobotClock on top of a virtual SimClock. Sleeping advances the SimClock (stepping every simulated
+ * device along the way) and returns immediately, so routines run as fast as the CPU allows.
+ */
+
+import org.firstinspires.ftc.teamcode.competitioncode.RobotClock;
+
+public class VirtualClock implements RobotClock {
+
+    public final SimClock simClock;
+
+    /* Constructor */
+    public VirtualClock(SimClock simClock){
+        if (simClock.followsWallClock())
+            throw new IllegalArgumentException("VirtualClock needs a SimClock that is advanced by hand");
+        this.simClock = simClock;
+    }
+
+    @Override
+    public long nanoTime() {
+        return simClock.nanoTime();
+    }
+
+    @Override
+    public void sleep(long milliseconds) {
+        simClock.advance(milliseconds * 1000000);
+    }
+
+    @Override
+    public void sleepNanos(long nanoseconds) {
+        simClock.advance(nanoseconds);
+    }
+}
@@ -0,0 +1,44 @@
+package org.firstinspires.ftc.teamcode.competitioncode;
+
+/**
+ * JMH benchmarks for the drive math that runs every TeleOp loop. Only the power calculations are
+ * measured, nothing here touches hardware, so no HardwareMap is needed.
+ */
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Thread)
+public class DriveBenchmark {
+
+    Hardware_OD_OmniDirection r;
+    double i;
+    double j;
+    double cw;
+    double speed;
+
+    @Setup
+    public void setup() {
+        r = new Hardware_OD_OmniDirection();
+        i = 0.4;
+        j = -0.7;
+        cw = 0;
+        speed = r.driveSpeedMed;
+        r.drivePowers[Hardware_OD_OmniDirection.LEFT_REAR] = 0.5;
+        r.drivePowers[Hardware_OD_OmniDirection.LEFT_FRONT] = -0.25; //setDriveSpeed only keeps the sign, so these settle at +-speed.
+    }
+
+    @Benchmark
+    public double povDrive() {
+        r.povDrive(i, j, 0, cw, speed);
+        return r.drivePowers[Hardware_OD_OmniDirection.LEFT_REAR] + r.drivePowers[Hardware_OD_OmniDirection.LEFT_FRONT];
+    }
+
+    @Benchmark
+    public double[] setDriveSpeed() {
+        r.setDriveSpeed(speed);
+        return r.drivePowers;
+    }
+}
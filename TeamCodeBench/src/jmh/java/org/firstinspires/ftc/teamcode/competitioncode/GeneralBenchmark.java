@@ -0,0 +1,69 @@
+package org.firstinspires.ftc.teamcode.competitioncode;
+
+/**
+ * JMH benchmarks for General12772's per-loop math. Allocating and out-parameter versions are
+ * measured side by side so the gc profiler shows what each one costs in bytes per call.
+ * rotateCoordsAtan2 is the old atan2/hypot path, the baseline for the precomputed rotation:
+ *     ./gradlew -Pbench :TeamCodeBench:jmh     (gc.alloc.rate.norm should be ~0 for the out-parameter one)
+ */
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Thread)
+public class GeneralBenchmark {
+
+    General12772 g;
+    double x;
+    double y;
+    double[] coords = new double[2];
+    double[] a = {0.5, -0.5, 0, 0.3, 1500};
+    double[] b = {0, 0, 1, 0.15, 2000};
+    double[] ab = new double[a.length + b.length];
+    int tick = 0;
+
+    @Setup
+    public void setup() {
+        g = new General12772();
+        g.init();
+        x = 0.3;
+        y = -0.8; //Fields, not constants, so the JIT can't fold the math away.
+    }
+
+    @Benchmark
+    public double[] rotateCoordsAllocating() {
+        return g.rotateCoords(x, y);
+    }
+
+    @Benchmark
+    public double[] rotateCoordsOutParameter() {
+        g.rotateCoords(x, y, coords);
+        return coords;
+    }
+
+    @Benchmark
+    public double[] rotateCoordsAtan2() {
+        return g.rotateCoords(x, y, General12772.OMNI_ROTATION);
+    }
+
+    @Benchmark
+    public double[] concatAllocating() {
+        return g.concat(a, b);
+    }
+
+    @Benchmark
+    public double[] concatOutParameter() {
+        g.concat(a, b, ab);
+        return ab;
+    }
+
+    @Benchmark
+    public void debounce(Blackhole bh) {
+        //Alternates pressed/released so every other call is a rising edge, like a button being mashed.
+        tick++;
+        bh.consume(g.debounce((tick & 1) == 0, 1, 8));
+    }
+}
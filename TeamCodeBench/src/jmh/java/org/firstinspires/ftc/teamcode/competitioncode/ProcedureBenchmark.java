@@ -0,0 +1,54 @@
+package org.firstinspires.ftc.teamcode.competitioncode;
+
+/**
+ * JMH benchmark for mirroring an autonomous procedure table for the blue side.
+ * mirrorProcedures works in place, so each call flips the table back and forth. Same work either way.
+ * Also building a column's table after Start, the way runRoutine() used to, against picking it
+ * from the ProcedureTable compiled during init.
+ */
+
+import org.firstinspires.ftc.robotcore.external.navigation.RelicRecoveryVuMark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Thread)
+public class ProcedureBenchmark {
+
+    double[][] procedures;
+    boolean[] mirrorThese;
+    AutoODVuforia op;
+    RelicRecoveryVuMark vuMark = RelicRecoveryVuMark.CENTER;
+
+    @Setup
+    public void setup() {
+        //Same shape as proceduresForLongSide: [i, j, cw, speed, time, stop]
+        procedures = new double[][]{
+                {-0.7, 0.7, 0, 0.3, 1400, 0},
+                {0.7, 0.7, 0, 0.3, 300, 0},
+                {0, 0, 1, -0.15, 1700, 0},
+                {0.7, 0.7, 0, 0.3, 1000, 0},
+                {0, 0, 0, 0, 500, 0},
+        };
+        mirrorThese = new boolean[]{true, false, true, false, false};
+        op = new AutoODVuforiaBlueLong();
+        op.compileProcedures();
+    }
+
+    @Benchmark
+    public double[][] mirrorProcedures() {
+        return AutoODVuforia.mirrorProcedures(procedures, mirrorThese);
+    }
+
+    @Benchmark
+    public double[][] buildColumnProcedures() {
+        return op.getCenterSideProcedures();
+    }
+
+    @Benchmark
+    public double selectColumnProcedures() {
+        ProcedureTable table = op.columnProcedures;
+        return table.get(table.firstRow(AutoODVuforia.columnBranch(vuMark)), ProcedureExecutor.TIME);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,161 @@
+package org.firstinspires.ftc.teamcode.competitioncode;
+
+/**
+ * Runs every AutoODVuforia corner's routine, for each VuMark column, on OmniChassisSim with a
+ * virtual clock, so the tables can be shortened offline instead of one field run at a time.
+ *     ./gradlew -Pbench :TeamCodeBench:simulateAutonomous [-Pflightlogs=folder]
+ * For each run it prints how long the routine takes, how long it takes when ProcedureExecutor stops
+ * after every row instead of blending into the next, how long the robot needs to stop after it,
+ * where it ended up, how far that is from where the rows mean it to go (each row's powers for its
+ * time on an ideal robot, see ProcedureExecutor), how much real time the simulation took, and how
+ * many rows timed out before reaching their encoder distance. Given a folder, each run's flight
+ * recorder log is saved there too, for FlightLogAnalyzer.
+ * A run fails if a row timed out or it ended more than MAX_ERROR_CM or MAX_ERROR_DEGREES from
+ * where it was meant to. Then it exits with status 1, so the Gradle task fails too.
+ */
+
+import com.qualcomm.robotcore.hardware.DcMotor;
+
+import org.firstinspires.ftc.robotcore.external.navigation.RelicRecoveryVuMark;
+import org.firstinspires.ftc.teamcode.simulation.OmniChassisSim;
+import org.firstinspires.ftc.teamcode.simulation.SimClock;
+import org.firstinspires.ftc.teamcode.simulation.SimHardwareMap;
+import org.firstinspires.ftc.teamcode.simulation.VirtualClock;
+
+import java.io.File;
+import java.io.IOException;
+
+public class AutoRoutineSim {
+
+    static final double HALF_TRACK = 0.2; //meters from center to each wheel, on each axis
+    static final double SETTLE_SPEED = 0.01; //m/s and rad/s, below this the robot counts as stopped
+    static final double MAX_SETTLE_SECONDS = 3;
+    static final double MAX_ERROR_CM = 5, MAX_ERROR_DEGREES = 5;
+
+    static int failed = 0; //runs, see simulate()
+
+    static final String[] COLUMNS = {"LEFT", "CENTER", "RIGHT"};
+    static final RelicRecoveryVuMark[] MARKS = {
+            RelicRecoveryVuMark.LEFT, RelicRecoveryVuMark.CENTER, RelicRecoveryVuMark.RIGHT};
+
+    static final Class<?>[] CORNERS = {
+            AutoODVuforiaRedLong.class,
+            AutoODVuforiaRedShort.class,
+            AutoODVuforiaRedShortLong.class,
+            AutoODVuforiaBlueLong.class,
+            AutoODVuforiaBlueShort.class,
+            AutoODVuforiaBlueShortLong.class,
+    };
+
+    public static void main(String[] args) throws Exception {
+        File flightLogs = args.length > 0 ? new File(args[0]) : null;
+        System.out.println(String.format("%-28s %-7s %9s %9s %8s %22s %22s %9s %9s %8s %8s",
+                "OP mode", "column", "routine s", "stopping", "settle s", "pose (x, y m, deg)", "meant (x, y m, deg)",
+                "error cm", "error deg", "real ms", "timeouts"));
+        long start = System.nanoTime();
+        double blendedSeconds = 0, stoppingSeconds = 0;
+        for (Class<?> corner : CORNERS)
+            for (int column = 0; column < COLUMNS.length; column++) {
+                AutoODVuforia stopping = newOpMode(corner);
+                stopping.executor.blend = false;
+                double stoppingRoutine = routineSeconds(stopping, column);
+                stoppingSeconds += stoppingRoutine;
+                blendedSeconds += simulate(newOpMode(corner), column, stoppingRoutine, flightLogs);
+            }
+        System.out.println(String.format("All %d runs took %.0f ms", CORNERS.length * 2 * COLUMNS.length,
+                (System.nanoTime() - start) / 1e6));
+        System.out.println(String.format("Routines total %.2f s blended, %.2f s stopping after every row, %.2f s saved",
+                blendedSeconds, stoppingSeconds, stoppingSeconds - blendedSeconds));
+
+        SimClock clock = new SimClock();
+        AutoODTestEachMotor testEachMotor = new AutoODTestEachMotor();
+        testEachMotor.r.init(SimHardwareMap.omniDirection(clock), false);
+        testEachMotor.useClock(new VirtualClock(clock));
+        start = System.nanoTime();
+        testEachMotor.runRoutine();
+        System.out.println(String.format("AutoODTestEachMotor: %.2f s simulated in %.1f ms",
+                clock.seconds(), (System.nanoTime() - start) / 1e6));
+
+        if (failed > 0) {
+            System.out.println(failed + " runs FAILED");
+            System.exit(1);
+        }
+    }
+
+    static AutoODVuforia newOpMode(Class<?> corner) throws Exception {
+        return corner.asSubclass(AutoODVuforia.class).getDeclaredConstructor().newInstance();
+    }
+
+    /**Just the routine time, for comparison.*/
+    static double routineSeconds(AutoODVuforia op, int column) {
+        SimClock clock = new SimClock();
+        SimHardwareMap map = SimHardwareMap.omniDirection(clock);
+        OmniChassisSim.omniDirection(map, HALF_TRACK);
+        op.r.init(map, false);
+        op.useClock(new VirtualClock(clock));
+        op.compileProcedures();
+        op.runRoutine(MARKS[column]);
+        return clock.seconds();
+    }
+
+    /**Prints one run's line, counts it in failed if it failed, returns its routine time.*/
+    static double simulate(AutoODVuforia op, int column, double stoppingSeconds, File flightLogs) throws IOException {
+        SimClock clock = new SimClock();
+        SimHardwareMap map = SimHardwareMap.omniDirection(clock);
+        OmniChassisSim chassis = OmniChassisSim.omniDirection(map, HALF_TRACK);
+        chassis.idealFollowsMotors = false; //the executor's corrections aren't what the rows mean
+        Hardware_OD_OmniDirection r = op.r;
+        r.init(map, false);
+        op.useClock(new VirtualClock(clock));
+        op.compileProcedures();
+
+        if (flightLogs != null)
+            op.flight.start(new File(flightLogs, op.getClass().getSimpleName() + "-" + COLUMNS[column]
+                    + FlightRecorder.FILE_EXTENSION));
+
+        long start = System.nanoTime();
+        op.runRoutine(MARKS[column]);
+        op.flight.stop();
+        double routineSeconds = clock.seconds();
+
+        r.povDrive(0, 0, 0, 0, 0);
+        r.update();
+        while ((chassis.speed() > SETTLE_SPEED || Math.abs(chassis.omega) > SETTLE_SPEED)
+                && clock.seconds() - routineSeconds < MAX_SETTLE_SECONDS)
+            clock.advanceMillis(10);
+        double settleSeconds = clock.seconds() - routineSeconds;
+        double realMs = (System.nanoTime() - start) / 1e6;
+
+        moveMeant(chassis, r, op.columnProcedures, AutoODVuforia.columnBranch(MARKS[column]));
+        moveMeant(chassis, r, op.ramTable, 0);
+        double errorCm = chassis.positionError() * 100, errorDegrees = Math.toDegrees(chassis.headingError());
+        boolean ok = op.executor.timeouts == 0
+                && errorCm <= MAX_ERROR_CM && Math.abs(errorDegrees) <= MAX_ERROR_DEGREES; //NaN fails too
+        if (!ok)
+            failed++;
+        System.out.println(String.format("%-28s %-7s %9.2f %9.2f %8.2f %22s %22s %9.1f %9.1f %8.1f %8d%s",
+                op.getClass().getSimpleName(), COLUMNS[column], routineSeconds, stoppingSeconds, settleSeconds,
+                pose(chassis.x, chassis.y, chassis.heading),
+                pose(chassis.idealX, chassis.idealY, chassis.idealHeading),
+                errorCm, errorDegrees, realMs, op.executor.timeouts, ok ? "" : "  FAILED"));
+        return routineSeconds;
+    }
+
+    /**Moves chassis' ideal pose the way each row of table's branch means the robot to move: the row's
+     * powers for the row's time, see ProcedureExecutor.*/
+    static void moveMeant(OmniChassisSim chassis, Hardware_OD_OmniDirection r, ProcedureTable table, int branch) {
+        double[] commands = new double[r.driveMotors.length];
+        for (int row = table.firstRow(branch); row < table.endRow(branch); row++) {
+            OmniKinematics.mix(table.get(row, ProcedureExecutor.I), table.get(row, ProcedureExecutor.J),
+                    table.get(row, ProcedureExecutor.CW), table.get(row, ProcedureExecutor.SPEED), commands);
+            for (int wheel = 0; wheel < commands.length; wheel++)
+                if (r.driveMotors[wheel].getDirection() == DcMotor.Direction.REVERSE)
+                    commands[wheel] = -commands[wheel];
+            chassis.moveIdeal(commands, table.get(row, ProcedureExecutor.TIME) / 1000);
+        }
+    }
+
+    static String pose(double x, double y, double heading) {
+        return String.format("(%.2f, %.2f, %.0f)", x, y, Math.toDegrees(heading));
+    }
+}
@@ -0,0 +1,84 @@
+package org.firstinspires.ftc.teamcode.competitioncode;
+
+/**
+ * Plays a gamepad recording saved by DriveOD or DriveRWD back through that OP mode's control
+ * pipeline on simulated hardware, with a virtual clock paced by the recorded frame times.
+ *     ./gradlew -Pbench :TeamCodeBench:replayGamepad -Precording=path/to/DriveOD-20180120-143000.gpr
+ * Pull recordings off the RC with: adb pull /sdcard/FIRST/recordings
+ * Prints where the motors (and, for DriveOD, the chassis) ended up, how many hub writes were sent
+ * and skipped, and the per-stage timing of the control code on this computer.
+ */
+
+import org.firstinspires.ftc.teamcode.simulation.OmniChassisSim;
+import org.firstinspires.ftc.teamcode.simulation.SimClock;
+import org.firstinspires.ftc.teamcode.simulation.SimDcMotor;
+import org.firstinspires.ftc.teamcode.simulation.SimHardwareMap;
+import org.firstinspires.ftc.teamcode.simulation.VirtualClock;
+
+import java.io.File;
+
+public class DriveReplaySim {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 1) {
+            System.out.println("Usage: DriveReplaySim <recording.gpr>");
+            return;
+        }
+        GamepadReplay replay = new GamepadReplay(new File(args[0]));
+        SimClock clock = new SimClock();
+        long start = System.nanoTime();
+        if (DriveOD.RECORDING_NAME.equals(replay.name)) {
+            SimHardwareMap map = SimHardwareMap.omniDirection(clock);
+            OmniChassisSim chassis = OmniChassisSim.omniDirection(map, AutoRoutineSim.HALF_TRACK);
+            DriveOD op = new DriveOD();
+            op.recordInput = false;
+            op.r.init(map, false);
+            op.g.init();
+            op.r.setClock(new VirtualClock(clock));
+            while (replay.hasNext()) {
+                clock.advance(replay.nextTimestampNanos() - clock.nanoTime());
+                op.controlStep(replay.next());
+            }
+            System.out.println(String.format("Chassis ended at %s, %.1f cm from the ideal robot",
+                    AutoRoutineSim.pose(chassis.x, chassis.y, chassis.heading), chassis.positionError() * 100));
+            printMotors(map, "leftRearDrive", "rightFrontDrive", "leftFrontDrive", "rightRearDrive", "mainArm");
+            printResults(op.r.writeCache, op.profiler);
+        } else if (DriveRWD.RECORDING_NAME.equals(replay.name)) {
+            SimHardwareMap map = SimHardwareMap.rearWheelDrive(clock);
+            DriveRWD op = new DriveRWD();
+            op.recordInput = false;
+            op.r.init(map, false);
+            op.g.init();
+            op.setUpClaw();
+            op.r.setClock(new VirtualClock(clock));
+            while (replay.hasNext()) {
+                clock.advance(replay.nextTimestampNanos() - clock.nanoTime());
+                op.controlStep(replay.next());
+            }
+            printMotors(map, "leftDrive", "rightDrive", "mainArm");
+            printResults(op.r.writeCache, op.profiler);
+        } else {
+            System.out.println("Don't know which OP mode recorded \"" + replay.name + "\"");
+            return;
+        }
+        System.out.println(String.format("%d frames, %.1f s simulated in %.0f ms", replay.size(),
+                clock.seconds(), (System.nanoTime() - start) / 1e6));
+    }
+
+    static void printMotors(SimHardwareMap map, String... names) {
+        for (String name : names) {
+            SimDcMotor motor = map.simMotor(name);
+            long positionReads = motor.positionReads; //before getCurrentPosition() below adds one
+            System.out.println(String.format("%-16s %8d ticks, %6d power writes, %4d mode writes, %6d position reads",
+                    name, motor.getCurrentPosition(), motor.powerWrites, motor.modeWrites, positionReads));
+        }
+    }
+
+    static void printResults(HardwareWriteCache writeCache, LoopProfiler profiler) {
+        System.out.println(String.format("Hub writes: %d sent, %d skipped (%.0f%%)",
+                writeCache.writesSent, writeCache.writesSkipped, writeCache.skippedPercent()));
+        for (int stage = 0; stage < profiler.stageNames.length; stage++)
+            System.out.println(String.format("%-12s p50 %.1f  p99 %.1f  max %.2f ms", profiler.stageNames[stage],
+                    profiler.percentileMs(stage, 0.50), profiler.percentileMs(stage, 0.99), profiler.maxMs(stage)));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,202 @@
+package org.firstinspires.ftc.teamcode.competitioncode;
+
+/**
+ * Summarizes a FlightRecorder log from DriveOD, DriveRWD or an AutoODVuforia corner, to find where
+ * cycle time goes without reading rows by hand. Reads the log once, row by row, so match-length
+ * logs need no more memory than short ones.
+ *     ./gradlew -Pbench :TeamCodeBench:analyzeFlightLog -Plog=DriveOD-20180120-143000.flt [-Pcsv=DriveOD.csv]
+ * Pull logs off the RC with: adb pull /sdcard/FIRST/flightlogs
+ * Prints:
+ *     loop period and loop work time, p50/p99/max, and how many periods ran late
+ *     cycles missing from the log (rows the recorder dropped)
+ *     time and rows per autonomous procedure step
+ *     arm duty cycle: time with power on, and time holding (power on, arm not moving)
+ *     wheel saturation: time each drive motor was commanded full power
+ * Each row's values count for the time until the next row, since that is how long they were in effect.
+ * With a CSV file given, also writes rows downsampled to CSV_HZ for plotting.
+ */
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class FlightLogAnalyzer {
+
+    static final double TARGET_HZ = 50; //what DriveOD, DriveRWD and AutoODVuforia's LoopScheduler run at
+    static final double LATE_FACTOR = 1.25; //a period this much over target counts as late
+    static final double SATURATED_POWER = 0.999;
+    static final int ARM_STILL_TICKS = 2; //arm moving at most this much between rows is holding
+    static final double CSV_HZ = 10;
+
+    static final int PERIOD = 0, WORK = 1;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.out.println("Usage: FlightLogAnalyzer <log.flt> [out.csv]");
+            return;
+        }
+        FlightLogReader log = new FlightLogReader(new File(args[0]));
+        PrintWriter csv = args.length > 1 ? new PrintWriter(new BufferedWriter(new FileWriter(args[1]))) : null;
+        try {
+            new FlightLogAnalyzer(log.driveMotorCount).analyze(log, csv);
+        } finally {
+            log.close();
+            if (csv != null)
+                csv.close();
+        }
+    }
+
+    final LoopProfiler loopTimes = new LoopProfiler(1000, "period", "work"); //0-100ms
+    final long latePeriodNanos = (long) (LATE_FACTOR * 1e9 / TARGET_HZ);
+    long latePeriods = 0;
+    long missingCycles = 0;
+    double seconds = 0;
+    /**Per step: seconds, rows.*/
+    final TreeMap<Integer, double[]> steps = new TreeMap<>();
+    double armOnSeconds = 0;
+    double armHoldingSeconds = 0;
+    double armHoldingPowerSum = 0; //|power| * seconds while holding, for the average holding power
+    final double[] saturatedSeconds;
+    double anySaturatedSeconds = 0;
+
+    //The previous row, whose values were in effect until the current row
+    private boolean havePrevious = false;
+    private long previousTimestamp;
+    private long previousCycle;
+    private int previousStep;
+    private float previousArmPower;
+    private int previousArmPosition;
+    private final float[] previousPowers;
+    private double nextCsvSeconds = 0;
+    private long firstTimestamp;
+
+    /* Constructor */
+    FlightLogAnalyzer(int driveMotorCount){
+        saturatedSeconds = new double[driveMotorCount];
+        previousPowers = new float[driveMotorCount];
+    }
+
+    void analyze(FlightLogReader log, PrintWriter csv) {
+        try {
+            if (csv != null)
+                writeCsvHeader(csv, log.driveMotorCount);
+            while (log.next()) {
+                add(log);
+                if (csv != null)
+                    writeCsvRow(csv, log);
+            }
+        } catch (IOException e) {
+            System.out.println("Stopped reading at row " + log.rows + ": " + e);
+        }
+        print(log);
+    }
+
+    void add(FlightLogReader row) {
+        loopTimes.record(WORK, (long) (row.loopMs * 1e6));
+        if (havePrevious) {
+            long periodNanos = row.timestampNanos - previousTimestamp;
+            double dt = periodNanos / 1e9;
+            seconds += dt;
+            loopTimes.record(PERIOD, periodNanos);
+            if (periodNanos > latePeriodNanos)
+                latePeriods++;
+            if (row.cycle - previousCycle > 1)
+                missingCycles += row.cycle - previousCycle - 1;
+
+            double[] step = steps.get(previousStep);
+            if (step == null)
+                steps.put(previousStep, step = new double[2]);
+            step[0] += dt;
+            step[1]++;
+
+            if (previousArmPower != 0) {
+                armOnSeconds += dt;
+                if (Math.abs(row.armPosition - previousArmPosition) <= ARM_STILL_TICKS) {
+                    armHoldingSeconds += dt;
+                    armHoldingPowerSum += Math.abs(previousArmPower) * dt;
+                }
+            }
+
+            boolean anySaturated = false;
+            for (int i = 0; i < previousPowers.length; i++)
+                if (Math.abs(previousPowers[i]) >= SATURATED_POWER) {
+                    saturatedSeconds[i] += dt;
+                    anySaturated = true;
+                }
+            if (anySaturated)
+                anySaturatedSeconds += dt;
+        } else {
+            firstTimestamp = row.timestampNanos;
+        }
+        havePrevious = true;
+        previousTimestamp = row.timestampNanos;
+        previousCycle = row.cycle;
+        previousStep = row.step;
+        previousArmPower = row.armPower;
+        previousArmPosition = row.armPosition;
+        System.arraycopy(row.drivePowers, 0, previousPowers, 0, previousPowers.length);
+    }
+
+    void print(FlightLogReader log) {
+        System.out.println(String.format(Locale.US, "%s: %d rows, %.2f s, %d drive motors, %d cycles missing",
+                log.name, log.rows, seconds, log.driveMotorCount, missingCycles));
+        if (log.rows < 2)
+            return;
+        for (int stage = PERIOD; stage <= WORK; stage++)
+            System.out.println(String.format(Locale.US, "  loop %-6s p50 %5.1f  p99 %5.1f  max %6.1f ms",
+                    loopTimes.stageNames[stage], loopTimes.percentileMs(stage, 0.50),
+                    loopTimes.percentileMs(stage, 0.99), loopTimes.maxMs(stage)));
+        System.out.println(String.format(Locale.US, "  %d periods (%.1f%%) over %.1f ms", latePeriods,
+                100.0 * latePeriods / loopTimes.count(PERIOD), latePeriodNanos / 1e6));
+
+        if (steps.size() > 1 || !steps.containsKey(-1)) {
+            System.out.println("  step   seconds   rows");
+            for (Map.Entry<Integer, double[]> step : steps.entrySet())
+                System.out.println(String.format(Locale.US, "  %4d  %8.2f  %5.0f", step.getKey(),
+                        step.getValue()[0], step.getValue()[1]));
+        }
+
+        System.out.println(String.format(Locale.US, "  arm powered %.1f%% of the time, holding still %.1f%% (average power %.2f)",
+                percentOfTime(armOnSeconds), percentOfTime(armHoldingSeconds),
+                armHoldingSeconds > 0 ? armHoldingPowerSum / armHoldingSeconds : 0.0));
+        StringBuilder saturation = new StringBuilder("  wheels at full power:");
+        for (int i = 0; i < saturatedSeconds.length; i++)
+            saturation.append(String.format(Locale.US, " %d: %.1f%%", i, percentOfTime(saturatedSeconds[i])));
+        saturation.append(String.format(Locale.US, ", any: %.1f%%", percentOfTime(anySaturatedSeconds)));
+        System.out.println(saturation);
+    }
+
+    double percentOfTime(double part) {
+        return seconds > 0 ? 100 * part / seconds : 0.0;
+    }
+
+    void writeCsvHeader(PrintWriter csv, int driveMotorCount) {
+        csv.print("t_s,cycle,step,loop_ms");
+        for (int i = 0; i < driveMotorCount; i++)
+            csv.print(",power_" + i);
+        for (int i = 0; i < driveMotorCount; i++)
+            csv.print(",encoder_" + i);
+        csv.println(",arm_power,arm_position,claw");
+    }
+
+    /**Writes the row if it is the first one at or after the next CSV_HZ tick.*/
+    void writeCsvRow(PrintWriter csv, FlightLogReader row) {
+        double t = (row.timestampNanos - firstTimestamp) / 1e9;
+        if (t < nextCsvSeconds)
+            return;
+        nextCsvSeconds += 1 / CSV_HZ;
+        if (nextCsvSeconds <= t) //don't burst after a gap
+            nextCsvSeconds = t + 1 / CSV_HZ;
+        csv.print(String.format(Locale.US, "%.3f,%d,%d,%.2f", t, row.cycle, row.step, row.loopMs));
+        for (float power : row.drivePowers)
+            csv.print(String.format(Locale.US, ",%.3f", power));
+        for (int encoder : row.driveEncoders)
+            csv.print("," + encoder);
+        csv.println(String.format(Locale.US, ",%.3f,%d,%.3f", row.armPower, row.armPosition, row.clawPosition));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,83 @@
+package org.firstinspires.ftc.teamcode.competitioncode;
+
+/**
+ * Streams a FlightRecorder file one row at a time, so logs of any length can be read in constant
+ * memory. After next() returns true, the public fields hold that row; the arrays are reused.
+ * A row cut short at the end of the file (robot switched off mid-flush) ends the log like EOF.
+ */
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+class FlightLogReader implements Closeable {
+
+    final String name;
+    final int driveMotorCount;
+    long rows = 0;
+
+    long timestampNanos;
+    long cycle;
+    int step;
+    float loopMs;
+    final float[] drivePowers;
+    final int[] driveEncoders;
+    float armPower;
+    int armPosition;
+    float clawPosition;
+
+    private final DataInputStream in;
+    private final byte[] row;
+    private final ByteBuffer rowBuffer;
+
+    /* Constructor */
+    FlightLogReader(File file) throws IOException {
+        in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 64 * 1024));
+        try {
+            if (in.readInt() != FlightRecorder.MAGIC)
+                throw new IOException(file + " is not a flight recorder log");
+            name = in.readUTF();
+            driveMotorCount = in.readInt();
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+        drivePowers = new float[driveMotorCount];
+        driveEncoders = new int[driveMotorCount];
+        row = new byte[FlightRecorder.rowBytes(driveMotorCount)];
+        rowBuffer = ByteBuffer.wrap(row);
+    }
+
+    /**Loads the next row into the fields. False once the log is over.*/
+    boolean next() throws IOException {
+        try {
+            in.readFully(row);
+        } catch (EOFException e) {
+            return false;
+        }
+        rowBuffer.clear();
+        timestampNanos = rowBuffer.getLong();
+        cycle = rowBuffer.getLong();
+        step = rowBuffer.getInt();
+        loopMs = rowBuffer.getFloat();
+        for (int i = 0; i < driveMotorCount; i++)
+            drivePowers[i] = rowBuffer.getFloat();
+        for (int i = 0; i < driveMotorCount; i++)
+            driveEncoders[i] = rowBuffer.getInt();
+        armPower = rowBuffer.getFloat();
+        armPosition = rowBuffer.getInt();
+        clawPosition = rowBuffer.getFloat();
+        rows++;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,145 @@
+package org.firstinspires.ftc.teamcode.competitioncode;
+
+/**
+ * Checks OmniKinematics, first on its own and then against OmniChassisSim.
+ *     ./gradlew -Pbench :TeamCodeBench:checkKinematics
+ * The first part mixes a grid of i, j and rotation inputs and checks that no wheel goes over the
+ * speed, and that the inverse gives back the inputs, or the inputs all scaled by the same factor
+ * where desaturation kicked in.
+ * The second part drives the simulated robot through Hardware_OD_OmniDirection.povDrive() for a
+ * few stick and trigger combinations, then turns the wheel encoders back into i, j and rotation
+ * with the inverse. The angle between that and the command should be under MAX_ERROR_DEGREES:
+ * the chassis moves the way the kinematics say it will, and the inverse is good enough for
+ * odometry. Combined commands should show the robot both traveling and turning.
+ * Exits with status 1 if any check failed, so the Gradle task fails too.
+ */
+
+import org.firstinspires.ftc.teamcode.simulation.OmniChassisSim;
+import org.firstinspires.ftc.teamcode.simulation.SimClock;
+import org.firstinspires.ftc.teamcode.simulation.SimHardwareMap;
+import org.firstinspires.ftc.teamcode.simulation.VirtualClock;
+
+public class KinematicsSim {
+
+    static final double[] GRID = {-1, -0.5, 0, 0.5, 1};
+    static final double TOLERANCE = 1e-9;
+    static final double DRIVE_SECONDS = 2;
+    static final double MAX_ERROR_DEGREES = 10; //Combined commands see about 4
+
+    //name, stick x, stick y, rotation (cw - acw)
+    static final String[] NAMES = {"forward", "strafe right", "turn", "forward + turn", "diagonal + turn", "full stick + turn"};
+    static final double[][] COMMANDS = {
+            {0, 1, 0},
+            {1, 0, 0},
+            {0, 0, 1},
+            {0, 1, 0.5},
+            {0.7, 0.7, 0.5},
+            {1, 1, 1},
+    };
+
+    public static void main(String[] args) {
+        int failed = checkInverse();
+        System.out.println();
+        System.out.println(String.format("%-18s %30s %30s %9s %10s %22s",
+                "command", "powers LR RF LF RR", "encoders i j r (ticks/s)", "error deg", "odometry", "pose (x, y m, deg)"));
+        for (int command = 0; command < COMMANDS.length; command++)
+            if (!simulate(NAMES[command], COMMANDS[command]))
+                failed++;
+        if (failed > 0) {
+            System.out.println(failed + " checks FAILED");
+            System.exit(1);
+        }
+    }
+
+    /**Returns how many inputs failed.*/
+    static int checkInverse() {
+        double[] powers = new double[4];
+        double[] chassis = new double[3];
+        int checked = 0, saturated = 0, failed = 0;
+        for (double speed : new double[]{0.5, 1})
+            for (double i : GRID)
+                for (double j : GRID)
+                    for (double r : GRID) {
+                        OmniKinematics.mix(i, j, r, speed, powers);
+                        double raw = Math.max(Math.max(Math.abs(-j + r), Math.abs(-j - r)),
+                                Math.max(Math.abs(i + r), Math.abs(i - r)));
+                        double scale = speed / Math.max(1, raw);
+                        if (raw > 1)
+                            saturated++;
+                        boolean ok = true;
+                        for (double power : powers)
+                            ok &= Math.abs(power) <= speed + TOLERANCE;
+                        OmniKinematics.chassisVelocity(powers, chassis);
+                        ok &= Math.abs(chassis[OmniKinematics.I] - i * scale) < TOLERANCE;
+                        ok &= Math.abs(chassis[OmniKinematics.J] - j * scale) < TOLERANCE;
+                        ok &= Math.abs(chassis[OmniKinematics.ROTATION] - r * scale) < TOLERANCE;
+                        if (!ok) {
+                            failed++;
+                            System.out.println(String.format("FAILED i %.1f j %.1f r %.1f speed %.1f", i, j, r, speed));
+                        }
+                        checked++;
+                    }
+        System.out.println(String.format("Inverse: %d inputs checked, %d desaturated, %d failed", checked, saturated, failed));
+        return failed;
+    }
+
+    /**Returns whether the wheel speeds and odometry both went within MAX_ERROR_DEGREES of the command.*/
+    static boolean simulate(String name, double[] command) {
+        SimClock clock = new SimClock();
+        SimHardwareMap map = SimHardwareMap.omniDirection(clock);
+        OmniChassisSim chassis = OmniChassisSim.omniDirection(map, AutoRoutineSim.HALF_TRACK);
+        Hardware_OD_OmniDirection r = new Hardware_OD_OmniDirection();
+        r.init(map, false);
+        r.setClock(new VirtualClock(clock));
+        General12772 g = new General12772();
+
+        double[] ij = new double[2];
+        g.rotateCoords(command[0], command[1], ij);
+        double rotation = command[2];
+        r.povDrive(ij[0], ij[1], rotation < 0 ? -rotation : 0, rotation > 0 ? rotation : 0, r.driveSpeedMed);
+        r.update();
+
+        //Odometry: sum of the inverse of each cycle's encoder change
+        int[] lastPositions = new int[4];
+        int[] deltas = new int[4];
+        double[] step = new double[3];
+        double[] odometry = new double[3];
+        r.readState();
+        System.arraycopy(r.drivePositions, 0, lastPositions, 0, 4);
+        while (clock.seconds() < DRIVE_SECONDS) {
+            clock.advanceMillis(20);
+            r.readState();
+            for (int wheel = 0; wheel < 4; wheel++) {
+                deltas[wheel] = r.drivePositions[wheel] - lastPositions[wheel];
+                lastPositions[wheel] = r.drivePositions[wheel];
+            }
+            OmniKinematics.chassisVelocity(deltas, step);
+            for (int axis = 0; axis < 3; axis++)
+                odometry[axis] += step[axis];
+        }
+
+        double[] commanded = new double[3];
+        double[] measured = new double[3];
+        OmniKinematics.chassisVelocity(r.drivePowers, commanded);
+        OmniKinematics.chassisVelocity(r.driveVelocities, measured);
+        double error = angleDegrees(commanded, measured), odometryError = angleDegrees(commanded, odometry);
+        boolean ok = error <= MAX_ERROR_DEGREES && odometryError <= MAX_ERROR_DEGREES; //NaN fails too
+        System.out.println(String.format("%-18s %30s %30s %9.1f %10.1f %22s%s", name,
+                String.format("%5.2f %5.2f %5.2f %5.2f", r.drivePowers[0], r.drivePowers[1], r.drivePowers[2], r.drivePowers[3]),
+                String.format("%7.0f %7.0f %7.0f", measured[0], measured[1], measured[2]),
+                error, odometryError, AutoRoutineSim.pose(chassis.x, chassis.y, chassis.heading),
+                ok ? "" : "  FAILED"));
+        return ok;
+    }
+
+    /**Angle between two i, j, rotation vectors.*/
+    static double angleDegrees(double[] a, double[] b) {
+        double dot = 0, aa = 0, bb = 0;
+        for (int axis = 0; axis < 3; axis++) {
+            dot += a[axis] * b[axis];
+            aa += a[axis] * a[axis];
+            bb += b[axis] * b[axis];
+        }
+        return Math.toDegrees(Math.acos(Math.max(-1, Math.min(1, dot / Math.sqrt(aa * bb)))));
+    }
+}
\ No newline at end of file
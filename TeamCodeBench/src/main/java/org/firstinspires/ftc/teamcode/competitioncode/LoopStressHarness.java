@@ -0,0 +1,208 @@
+package org.firstinspires.ftc.teamcode.competitioncode;
+
+/**
+ * Runs many DriveOD control loops at once, each on its own thread against its own simulated hub,
+ * to see how scheduling, telemetry, the flight recorder and GC push the loop period around as the
+ * machine gets busier. Run it before and after changing LoopScheduler, TelemetryPublisher or
+ * FlightRecorder, ideally on hardware about as slow as the RC phone.
+ *     ./gradlew -Pbench :TeamCodeBench:stressLoops [-PhubLatencyMs=1] [-Pseconds=3]
+ * Each loop is a real DriveOD running runCycle() at 50 Hz on the wall clock, with made-up stick input.
+ * Every device read or write blocks for the hub latency, like a REV hub over USB does. At 2 ms
+ * DriveOD's ~10 hub calls a cycle already overrun 20 ms on their own, which hides everything else.
+ * Configurations add one layer at a time on top of the previous:
+ *     base            - telemetry at the usual 5 Hz, nothing else
+ *     +flight log     - FlightRecorder writing to a temp file
+ *     +telemetry 50Hz - telemetry published every cycle
+ *     +garbage        - another thread allocating about 60 MB/s, like a busy phone
+ * For each configuration and loop count it prints the loop period and its distance from 20 ms
+ * (jitter) as p50/p99/max over all loops, the share of overrun cycles, and GC activity.
+ */
+
+import com.qualcomm.robotcore.eventloop.opmode.OpMode;
+import com.qualcomm.robotcore.exception.RobotCoreException;
+import com.qualcomm.robotcore.hardware.Gamepad;
+import com.qualcomm.robotcore.robocol.TelemetryMessage;
+
+import org.firstinspires.ftc.robotcore.internal.opmode.OpModeServices;
+import org.firstinspires.ftc.teamcode.simulation.SimClock;
+import org.firstinspires.ftc.teamcode.simulation.SimHardwareMap;
+
+import java.io.File;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.LockSupport;
+
+public class LoopStressHarness {
+
+    static final int[] LOOP_COUNTS = {1, 2, 4, 8, 16};
+    static final String[] CONFIGS = {"base", "+flight log", "+telemetry 50Hz", "+garbage"};
+    static final int FLIGHT_LOG = 1, FAST_TELEMETRY = 2, GARBAGE = 3;
+    static final int PERIOD = 0, JITTER = 1;
+
+    public static void main(String[] args) throws Exception {
+        double hubLatencyMs = args.length > 0 ? Double.parseDouble(args[0]) : 1;
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 3;
+        System.out.println(String.format("%d cores, hub latency %.1f ms, %.0f s per run",
+                Runtime.getRuntime().availableProcessors(), hubLatencyMs, seconds));
+        System.out.println(String.format("%-16s %5s %8s %22s %22s %9s %8s %7s",
+                "config", "loops", "cycles", "period p50/p99/max", "jitter p50/p99/max", "overruns", "GCs", "GC ms"));
+        for (int config = 0; config < CONFIGS.length; config++)
+            for (int loops : LOOP_COUNTS)
+                run(config, loops, (long) (hubLatencyMs * 1e6), (long) (seconds * 1e9));
+    }
+
+    static void run(int config, int loops, final long hubLatencyNanos, final long runNanos) throws Exception {
+        final int configuration = config;
+        Thread garbage = config >= GARBAGE ? startGarbage() : null;
+        long gcCount = gcCount(), gcMillis = gcMillis();
+        //init() saves encoder zeros in a static map, so every robot is set up here before any loop runs
+        List<StressedDriveOD> ops = new ArrayList<>();
+        for (int i = 0; i < loops; i++)
+            ops.add(setUp(config, hubLatencyNanos));
+        ExecutorService pool = Executors.newFixedThreadPool(loops);
+        List<Future<StressedDriveOD>> results = new ArrayList<>();
+        for (final StressedDriveOD op : ops)
+            results.add(pool.submit(new Callable<StressedDriveOD>() {
+                @Override
+                public StressedDriveOD call() throws Exception {
+                    return runLoop(op, configuration, runNanos);
+                }
+            }));
+
+        LoopProfiler total = new LoopProfiler(1000, "period", "jitter");
+        long overruns = 0, cycles = 0;
+        for (Future<StressedDriveOD> result : results) {
+            StressedDriveOD op = result.get();
+            total.add(op.times);
+            overruns += op.loop.overruns;
+            cycles += op.loop.cycles;
+        }
+        pool.shutdown();
+        if (garbage != null) {
+            garbage.interrupt();
+            garbage.join();
+        }
+        System.out.println(String.format("%-16s %5d %8d %22s %22s %8.1f%% %8d %7d", CONFIGS[config], loops,
+                cycles, percentiles(total, PERIOD), percentiles(total, JITTER),
+                cycles > 0 ? 100.0 * overruns / cycles : 0.0, gcCount() - gcCount, gcMillis() - gcMillis));
+    }
+
+    static StressedDriveOD setUp(int config, long hubLatencyNanos) {
+        SimHardwareMap map = SimHardwareMap.omniDirection(SimClock.followingWallClock());
+        map.clock.hubLatencyNanos = hubLatencyNanos;
+        StressedDriveOD op = new StressedDriveOD();
+        op.internalOpModeServices = new TelemetrySink();
+        op.recordInput = false;
+        op.r.init(map, false);
+        op.g.init();
+        op.initTelemetry();
+        if (config >= FAST_TELEMETRY)
+            op.publisher.setPublishHz(op.loop.getTargetHz());
+        return op;
+    }
+
+    static StressedDriveOD runLoop(StressedDriveOD op, int config, long runNanos) throws Exception {
+        File log = null;
+        if (config >= FLIGHT_LOG) {
+            log = File.createTempFile("stress", FlightRecorder.FILE_EXTENSION);
+            op.flight.start(log);
+        }
+        try {
+            long end = System.nanoTime() + runNanos;
+            long lastStart = 0;
+            op.loop.start();
+            while (System.nanoTime() < end) {
+                op.runCycle();
+                long start = op.r.state.timestampNanos; //taken right after the cycle's wait
+                if (lastStart != 0) {
+                    long period = start - lastStart;
+                    op.times.record(PERIOD, period);
+                    op.times.record(JITTER, Math.abs(period - op.loop.targetPeriodNanos));
+                }
+                lastStart = start;
+            }
+        } finally {
+            op.flight.stop();
+            if (log != null && !log.delete())
+                log.deleteOnExit();
+        }
+        return op;
+    }
+
+    /**DriveOD with steadily changing sticks, a speed button press every 2 s and period timing.*/
+    static class StressedDriveOD extends DriveOD {
+        final LoopProfiler times = new LoopProfiler(1000, "period", "jitter");
+        final Gamepad pad = new Gamepad();
+        long inputs = 0;
+
+        @Override
+        Gamepad nextInput() {
+            double t = inputs++ * 0.02;
+            pad.left_stick_x = (float) Math.sin(t);
+            pad.left_stick_y = (float) Math.cos(0.7 * t);
+            pad.right_trigger = (float) Math.max(0, Math.sin(0.3 * t));
+            pad.right_stick_y = (float) Math.sin(0.5 * t);
+            pad.a = inputs % 100 == 0;
+            return pad;
+        }
+    }
+
+    /**Stands in for the Driver Station connection: turns each telemetry message into bytes, like sending it would.*/
+    static class TelemetrySink implements OpModeServices {
+        long bytes = 0;
+
+        @Override
+        public void refreshUserTelemetry(TelemetryMessage telemetry, double sInterval) {
+            try {
+                bytes += telemetry.toByteArray().length;
+            } catch (RobotCoreException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void requestOpModeStop(OpMode opModeToStopIfActive) {
+        }
+    }
+
+    /**Allocates 16 KB every 250 us and keeps the last 256 around, so some of it survives a young GC.*/
+    static Thread startGarbage() {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                byte[][] kept = new byte[256][];
+                for (int i = 0; !Thread.currentThread().isInterrupted(); i++) {
+                    kept[i & 255] = new byte[16 * 1024];
+                    LockSupport.parkNanos(250000);
+                }
+            }
+        }, "Garbage");
+        thread.start();
+        return thread;
+    }
+
+    static String percentiles(LoopProfiler profiler, int stage) {
+        return String.format("%.1f / %.1f / %.1f", profiler.percentileMs(stage, 0.50),
+                profiler.percentileMs(stage, 0.99), profiler.maxMs(stage));
+    }
+
+    static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+            count += Math.max(0, gc.getCollectionCount());
+        return count;
+    }
+
+    static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+            millis += Math.max(0, gc.getCollectionTime());
+        return millis;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,107 @@
+package org.firstinspires.ftc.teamcode.competitioncode;
+
+/**
+ * Runs PositionMove on the Rear Wheel Drive robot in simulation, at each drive speed and for a
+ * short and a long move, once with matched wheels and once with the right one 10% slower.
+ *     ./gradlew -Pbench :TeamCodeBench:checkPositionMove
+ * For each it prints how long the move took, how far each wheel ended from the target and how far
+ * past it each went, and each wheel's stop latency. Then the same moves the way AutoRWDDistance
+ * used to do them: RUN_TO_POSITION, checking only the left wheel every 200 ms until it is within
+ * 50 ticks, for comparison.
+ * A PositionMove fails if it timed out, or if a wheel didn't settle, ended outside toleranceTicks
+ * or went more than MAX_OVERSHOOT_TICKS past the target. Then it exits with status 1, so the
+ * Gradle task fails too. The polled moves are only printed.
+ */
+
+import com.qualcomm.robotcore.hardware.DcMotor;
+
+import org.firstinspires.ftc.teamcode.simulation.SimClock;
+import org.firstinspires.ftc.teamcode.simulation.SimHardwareMap;
+import org.firstinspires.ftc.teamcode.simulation.VirtualClock;
+
+public class PositionMoveSim {
+
+    static final int LEFT = Hardware_RWD_RearWheelDrive.LEFT, RIGHT = Hardware_RWD_RearWheelDrive.RIGHT;
+    static final int[] TARGETS = {1000, 5238}; //5238 is AutoRWDDistance's 4 feet
+    static final double SETTLE_SECONDS = 1;
+    static final int MAX_OVERSHOOT_TICKS = 50; //About 13 at full speed
+
+    public static void main(String[] args) {
+        System.out.println(String.format("%-14s %6s %6s %8s %14s %14s %16s %7s",
+                "", "speed", "target", "took ms", "end L R", "overshoot L R", "stop latency L R", "cycles"));
+        Hardware_RWD_RearWheelDrive speeds = new Hardware_RWD_RearWheelDrive();
+        int failed = 0;
+        for (double rightSpeed : new double[]{1, 0.9})
+            for (double speed : new double[]{speeds.driveSpeedMin, speeds.driveSpeedMed, speeds.driveSpeedMax})
+                for (int target : TARGETS) {
+                    String name = rightSpeed == 1 ? "matched" : "right 10% slow";
+                    if (!positionMove(name, speed, target, rightSpeed))
+                        failed++;
+                    polled(name, speed, target, rightSpeed);
+                }
+        if (failed > 0) {
+            System.out.println(failed + " moves FAILED");
+            System.exit(1);
+        }
+    }
+
+    static Hardware_RWD_RearWheelDrive robot(SimClock clock, double rightSpeed) {
+        SimHardwareMap map = SimHardwareMap.rearWheelDrive(clock);
+        map.simMotor("rightDrive").freeSpeedTicksPerSecond *= rightSpeed;
+        Hardware_RWD_RearWheelDrive r = new Hardware_RWD_RearWheelDrive();
+        r.init(map, true);
+        r.setClock(new VirtualClock(clock));
+        return r;
+    }
+
+    /**Returns whether the move passed, see above.*/
+    static boolean positionMove(String name, double speed, int target, double rightSpeed) {
+        SimClock clock = new SimClock();
+        Hardware_RWD_RearWheelDrive r = robot(clock, rightSpeed);
+        LoopScheduler loop = new LoopScheduler(50);
+        loop.clock = r.clock;
+        PositionMove move = new PositionMove(r, loop);
+        move.clock = r.clock;
+        move.moveTo(target, speed);
+        clock.advanceMillis((long) (SETTLE_SECONDS * 1000)); //Anything still rolling shows up in end
+        r.readState();
+        boolean ok = !move.timedOut && !move.stopped;
+        for (int wheel = 0; wheel < r.drivePositions.length; wheel++)
+            ok &= Math.abs(r.drivePositions[wheel] - target) <= move.toleranceTicks
+                    && move.overshootTicks[wheel] <= MAX_OVERSHOOT_TICKS && !Double.isNaN(move.stopLatencyMs[wheel]);
+        System.out.println(String.format("%-14s %6.2f %6d %8.0f %7d %6d %7d %6d %8.0f %7.0f %7d%s%s",
+                name, speed, target, move.durationMs,
+                r.drivePositions[LEFT] - target, r.drivePositions[RIGHT] - target,
+                move.overshootTicks[LEFT], move.overshootTicks[RIGHT],
+                move.stopLatencyMs[LEFT], move.stopLatencyMs[RIGHT], move.cycles,
+                move.timedOut ? " timed out" : "", ok ? "" : "  FAILED"));
+        return ok;
+    }
+
+    /**AutoRWDDistance before PositionMove.*/
+    static void polled(String name, double speed, int target, double rightSpeed) {
+        SimClock clock = new SimClock();
+        Hardware_RWD_RearWheelDrive r = robot(clock, rightSpeed);
+        r.writeCache.setMode(r.driveMotors[LEFT], DcMotor.RunMode.RUN_TO_POSITION);
+        r.writeCache.setMode(r.driveMotors[RIGHT], DcMotor.RunMode.RUN_TO_POSITION);
+        r.setDriveSpeed(speed);
+        r.writeCache.setTargetPosition(r.driveMotors[LEFT], r.encoders.toHub(LEFT, target));
+        r.writeCache.setTargetPosition(r.driveMotors[RIGHT], r.encoders.toHub(RIGHT, target));
+        r.update();
+        r.readState();
+        long polls = 0;
+        while (Math.abs(r.state.driveEncoders[0] - target) > 50) {
+            clock.advanceMillis(200);
+            r.readState();
+            polls++;
+        }
+        double tookMs = clock.seconds() * 1000;
+        int leftAtReturn = r.drivePositions[LEFT] - target, rightAtReturn = r.drivePositions[RIGHT] - target;
+        clock.advanceMillis((long) (SETTLE_SECONDS * 1000));
+        r.readState();
+        System.out.println(String.format("%-14s %6.2f %6d %8.0f %7d %6d %14s %16s %7d  (polled every 200 ms, %d %d at return)",
+                "", speed, target, tookMs,
+                r.drivePositions[LEFT] - target, r.drivePositions[RIGHT] - target,
+                "", "", polls, leftAtReturn, rightAtReturn));
+    }
+}
\ No newline at end of file